@@ -0,0 +1,232 @@
+/**
+ * Copyright (C) 2012 Clyde Stubbs,   2010 Philipp Giese
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.orm.androrm.processor;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+import javax.tools.Diagnostic;
+
+/**
+ * Generates a com.orm.androrm.ModelMetadata implementation for every model class, that is
+ * compiled with this processor on the processor path. The implementation lists the database
+ * fields declared by the class, reads them without reflection and creates new instances. The
+ * DatabaseAdapter picks it up by its name, so models don't need to be annotated.
+ * <p/>
+ * Only fields, whose declared type is a data field or a relation, are described. Fields are
+ * expected to be initialized by the constructor of the model, like the adapter does at runtime.
+ * Private fields and private model classes are left out, as they can't be accessed from the
+ * generated class.
+ */
+@SupportedAnnotationTypes("*")
+public class MetadataProcessor extends AbstractProcessor {
+
+	private static final String PACKAGE = "com.orm.androrm";
+	private static final String SUFFIX = "_Metadata";
+
+	private static final String[] FIELD_TYPES = {
+		PACKAGE + ".DataField",
+		PACKAGE + ".OneToManyField",
+		PACKAGE + ".ManyToManyField"
+	};
+
+	private final Set<String> mGenerated = new HashSet<String>();
+
+	@Override
+	public SourceVersion getSupportedSourceVersion() {
+		return SourceVersion.latestSupported();
+	}
+
+	@Override
+	public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+		TypeElement model = processingEnv.getElementUtils().getTypeElement(PACKAGE + ".Model");
+
+		if(model == null)
+			return false;
+
+		for(TypeElement type : getTypes(roundEnv.getRootElements()))
+			if(isModel(type, model))
+				generate(type);
+
+		return false;
+	}
+
+	private List<TypeElement> getTypes(Set<? extends Element> elements) {
+		List<TypeElement> types = new ArrayList<TypeElement>();
+
+		for(Element element : elements)
+			if(element.getKind() == ElementKind.CLASS) {
+				TypeElement type = (TypeElement) element;
+
+				types.add(type);
+				types.addAll(getTypes(new HashSet<Element>(ElementFilter.typesIn(type.getEnclosedElements()))));
+			}
+
+		return types;
+	}
+
+	private boolean isModel(TypeElement type, TypeElement model) {
+		Types types = processingEnv.getTypeUtils();
+
+		if(type.equals(model)
+				|| !type.getTypeParameters().isEmpty()
+				|| !types.isSubtype(types.erasure(type.asType()), types.erasure(model.asType())))
+			return false;
+
+		for(Element e = type; e instanceof TypeElement; e = e.getEnclosingElement())
+			if(e.getModifiers().contains(Modifier.PRIVATE)
+					|| (!e.getModifiers().contains(Modifier.STATIC)
+							&& e.getEnclosingElement() instanceof TypeElement))
+				return false;
+
+		return true;
+	}
+
+	private List<String> getFields(TypeElement type) {
+		Elements elements = processingEnv.getElementUtils();
+		Types types = processingEnv.getTypeUtils();
+		List<String> fields = new ArrayList<String>();
+
+		for(VariableElement field : ElementFilter.fieldsIn(type.getEnclosedElements())) {
+			if(field.getModifiers().contains(Modifier.PRIVATE))
+				continue;
+
+			TypeMirror fieldType = types.erasure(field.asType());
+
+			for(String name : FIELD_TYPES) {
+				TypeElement fieldClass = elements.getTypeElement(name);
+
+				if(fieldClass != null && types.isSubtype(fieldType, types.erasure(fieldClass.asType()))) {
+					fields.add(field.getSimpleName().toString());
+					break;
+				}
+			}
+		}
+
+		return fields;
+	}
+
+	private boolean isInstantiable(TypeElement type) {
+		if(type.getModifiers().contains(Modifier.ABSTRACT))
+			return false;
+
+		List<ExecutableElement> constructors = ElementFilter.constructorsIn(type.getEnclosedElements());
+
+		for(ExecutableElement constructor : constructors)
+			if(constructor.getParameters().isEmpty())
+				return constructor.getModifiers().contains(Modifier.PUBLIC);
+
+		return false;
+	}
+
+	private void generate(TypeElement type) {
+		Elements elements = processingEnv.getElementUtils();
+		PackageElement pkg = elements.getPackageOf(type);
+
+		String packageName = pkg.getQualifiedName().toString();
+		String binaryName = elements.getBinaryName(type).toString();
+		String simpleName = (packageName.length() == 0
+				? binaryName
+				: binaryName.substring(packageName.length() + 1)) + SUFFIX;
+		String qualifiedName = (packageName.length() == 0 ? "" : packageName + ".") + simpleName;
+
+		if(!mGenerated.add(qualifiedName))
+			return;
+
+		String modelName = type.getQualifiedName().toString();
+		List<String> fields = getFields(type);
+
+		try {
+			PrintWriter out = new PrintWriter(processingEnv.getFiler()
+					.createSourceFile(qualifiedName, type)
+					.openWriter());
+
+			try {
+				if(packageName.length() != 0) {
+					out.println("package " + packageName + ";");
+					out.println();
+				}
+
+				out.println("/**");
+				out.println(" * Generated by " + getClass().getName() + ". Do not edit.");
+				out.println(" */");
+				out.println("public final class " + simpleName
+						+ " implements " + PACKAGE + ".ModelMetadata<" + modelName + "> {");
+				out.println();
+				out.println("\tprivate static final String[] FIELDS = {");
+
+				for(String field : fields)
+					out.println("\t\t\"" + field + "\",");
+
+				out.println("\t};");
+				out.println();
+				out.println("\t@Override");
+				out.println("\tpublic Class<" + modelName + "> getModelClass() {");
+				out.println("\t\treturn " + modelName + ".class;");
+				out.println("\t}");
+				out.println();
+				out.println("\t@Override");
+				out.println("\tpublic String[] getFieldNames() {");
+				out.println("\t\treturn FIELDS.clone();");
+				out.println("\t}");
+				out.println();
+				out.println("\t@Override");
+				out.println("\tpublic Object getField(" + modelName + " instance, int index) {");
+				out.println("\t\tswitch(index) {");
+
+				for(int i = 0; i < fields.size(); i++)
+					out.println("\t\tcase " + i + ": return instance." + fields.get(i) + ";");
+
+				out.println("\t\tdefault: throw new IndexOutOfBoundsException(\"no field \" + index);");
+				out.println("\t\t}");
+				out.println("\t}");
+				out.println();
+				out.println("\t@Override");
+				out.println("\tpublic " + modelName + " newInstance() {");
+				out.println("\t\treturn " + (isInstantiable(type) ? "new " + modelName + "()" : "null") + ";");
+				out.println("\t}");
+				out.println("}");
+			} finally {
+				out.close();
+			}
+		} catch(IOException e) {
+			processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+					"can not generate metadata for " + modelName + ": " + e.getMessage(), type);
+		}
+	}
+}
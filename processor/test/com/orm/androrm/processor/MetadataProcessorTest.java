@@ -0,0 +1,220 @@
+/**
+ * Copyright (C) 2012 Clyde Stubbs,   2010 Philipp Giese
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.orm.androrm.processor;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.reflect.Field;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.Arrays;
+
+import javax.tools.JavaCompiler;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+
+import junit.framework.TestCase;
+
+import com.orm.androrm.CharField;
+import com.orm.androrm.ForeignKeyField;
+import com.orm.androrm.IntegerField;
+import com.orm.androrm.Model;
+import com.orm.androrm.ModelMetadata;
+
+/**
+ * Compiles model classes with the {@link MetadataProcessor} and reads their fields through the
+ * generated metadata. Runs on the JVM, as it needs the compiler, with the androrm classes and
+ * android.jar on the class path.
+ */
+public class MetadataProcessorTest extends TestCase {
+
+	private static final String SAMPLE = "package sample;\n"
+			+ "import com.orm.androrm.*;\n"
+			+ "public class Sample extends Model {\n"
+			+ "	protected CharField mName;\n"
+			+ "	protected IntegerField mCount;\n"
+			+ "	protected ForeignKeyField<Sample> mParent;\n"
+			+ "	protected String mNote;\n"
+			+ "	private CharField mHidden;\n"
+			+ "	public Sample() {\n"
+			+ "		super(false);\n"
+			+ "		mName = new CharField();\n"
+			+ "		mCount = new IntegerField();\n"
+			+ "		mParent = new ForeignKeyField<Sample>(Sample.class, this);\n"
+			+ "		mHidden = new CharField();\n"
+			+ "	}\n"
+			+ "	public static class Nested extends Model {\n"
+			+ "		protected CharField mTitle;\n"
+			+ "		public Nested() {\n"
+			+ "			super(false);\n"
+			+ "			mTitle = new CharField();\n"
+			+ "		}\n"
+			+ "	}\n"
+			+ "	public static abstract class Base extends Model {\n"
+			+ "		protected CharField mKind;\n"
+			+ "		public Base() {\n"
+			+ "			super(false);\n"
+			+ "		}\n"
+			+ "	}\n"
+			+ "	private static class Hidden extends Model {\n"
+			+ "		protected CharField mSecret;\n"
+			+ "		public Hidden() {\n"
+			+ "			super(false);\n"
+			+ "		}\n"
+			+ "	}\n"
+			+ "}\n";
+
+	private File mDir;
+	private ClassLoader mLoader;
+
+	@Override
+	public void setUp() throws IOException {
+		mDir = File.createTempFile("metadata", "");
+		mDir.delete();
+		mDir.mkdirs();
+
+		File source = new File(mDir, "sample/Sample.java");
+		source.getParentFile().mkdirs();
+
+		Writer out = new FileWriter(source);
+
+		try {
+			out.write(SAMPLE);
+		} finally {
+			out.close();
+		}
+
+		JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+		StandardJavaFileManager files = compiler.getStandardFileManager(null, null, null);
+
+		try {
+			JavaCompiler.CompilationTask task = compiler.getTask(null,
+					files,
+					null,
+					Arrays.asList("-d", mDir.getPath(),
+							"-s", mDir.getPath(),
+							"-classpath", System.getProperty("java.class.path")),
+					null,
+					files.getJavaFileObjects(source));
+
+			task.setProcessors(Arrays.asList(new MetadataProcessor()));
+
+			assertTrue(task.call());
+		} finally {
+			files.close();
+		}
+
+		mLoader = new URLClassLoader(new URL[] { mDir.toURI().toURL() }, getClass().getClassLoader());
+	}
+
+	@SuppressWarnings("unchecked")
+	private ModelMetadata<Model> load(String model) throws Exception {
+		return (ModelMetadata<Model>) mLoader.loadClass(model + ModelMetadata.SUFFIX).newInstance();
+	}
+
+	private Object reflect(Object instance, String name) throws Exception {
+		Field field = instance.getClass().getDeclaredField(name);
+		field.setAccessible(true);
+
+		return field.get(instance);
+	}
+
+	public void testFieldNames() throws Exception {
+		ModelMetadata<Model> metadata = load("sample.Sample");
+
+		assertEquals(mLoader.loadClass("sample.Sample"), metadata.getModelClass());
+		// neither the plain string nor the private field are database fields
+		assertEquals(Arrays.asList("mName", "mCount", "mParent"),
+				Arrays.asList(metadata.getFieldNames()));
+
+		// the names are copied, so callers can't change them
+		metadata.getFieldNames()[0] = "mOther";
+		assertEquals("mName", metadata.getFieldNames()[0]);
+	}
+
+	public void testAccessors() throws Exception {
+		ModelMetadata<Model> metadata = load("sample.Sample");
+		Model instance = metadata.newInstance();
+
+		assertNotNull(instance);
+		assertSame(metadata.getModelClass(), instance.getClass());
+
+		String[] names = metadata.getFieldNames();
+
+		for(int i = 0; i < names.length; i++) {
+			assertSame(reflect(instance, names[i]), metadata.getField(instance, i));
+		}
+
+		assertTrue(metadata.getField(instance, 0) instanceof CharField);
+		assertTrue(metadata.getField(instance, 1) instanceof IntegerField);
+		assertTrue(metadata.getField(instance, 2) instanceof ForeignKeyField);
+
+		try {
+			metadata.getField(instance, names.length);
+
+			fail();
+		} catch(IndexOutOfBoundsException e) {
+
+		}
+	}
+
+	public void testNestedModel() throws Exception {
+		// looked up by the binary name of the class, as the adapter does
+		ModelMetadata<Model> metadata = load("sample.Sample$Nested");
+
+		assertEquals(Arrays.asList("mTitle"), Arrays.asList(metadata.getFieldNames()));
+		assertNotNull(metadata.newInstance());
+	}
+
+	public void testAbstractModel() throws Exception {
+		ModelMetadata<Model> metadata = load("sample.Sample$Base");
+
+		assertEquals(Arrays.asList("mKind"), Arrays.asList(metadata.getFieldNames()));
+		assertNull(metadata.newInstance());
+	}
+
+	public void testPrivateModel() throws Exception {
+		try {
+			load("sample.Sample$Hidden");
+
+			fail();
+		} catch(ClassNotFoundException e) {
+
+		}
+	}
+
+	@Override
+	public void tearDown() {
+		delete(mDir);
+	}
+
+	private static void delete(File file) {
+		File[] children = file.listFiles();
+
+		if(children != null) {
+			for(File child : children) {
+				delete(child);
+			}
+		}
+
+		file.delete();
+	}
+}
@@ -32,24 +32,66 @@ import android.database.Cursor;
  * <br /><br />
  * In the database this field is represented through an 
  * integer fields with the length 1. 
+ * <br /><br />
+ * {@link #getBoolean()} and {@link #setBoolean(boolean)} 
+ * work on the primitive value without boxing it. 
  * 
  * @author Philipp Giese
  */
 public class BooleanField extends DataField<Boolean>{
 
+	private boolean mBoolean;
+	/**
+	 * Set, if the value has been set to <code>null</code>
+	 * through {@link #set(Boolean)}.
+	 */
+	private boolean mNull;
+	
 	public BooleanField() {
 		setUp();
-		mValue = false;
+	}
+	
+	@Override
+	public Boolean get() {
+		if(mNull) {
+			return null;
+		}
+		
+		return mBoolean;
+	}
+	
+	public boolean getBoolean() {
+		return mBoolean;
+	}
+	
+	@Override
+	public void set(Boolean value) {
+		mNull = value == null;
+		mBoolean = !mNull && value;
+	}
+	
+	public void setBoolean(boolean value) {
+		mNull = false;
+		mBoolean = value;
 	}
 	
 	@Override
 	public void putData(String key, ContentValues values) {
-		values.put(key, get());
+		if(mNull) {
+			values.putNull(key);
+		} else {
+			values.put(key, mBoolean);
+		}
 	}
 
 	@Override
 	public void set(Cursor c, String fieldName) {
-		set(c.getInt(c.getColumnIndexOrThrow(fieldName)) == 1);
+		set(c, c.getColumnIndexOrThrow(fieldName));
+	}
+	
+	@Override
+	public void set(Cursor c, int columnIndex) {
+		setBoolean(c.getInt(columnIndex) == 1);
 	}
 
 	private void setUp() {
@@ -59,7 +101,12 @@ public class BooleanField extends DataField<Boolean>{
 
 	@Override
 	public void reset() {
-		mValue = false;
+		setBoolean(false);
+	}
+	
+	@Override
+	public String toString() {
+		return String.valueOf(get());
 	}
 
 }
\ No newline at end of file
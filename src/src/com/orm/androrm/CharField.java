@@ -57,7 +57,12 @@ public class CharField extends DataField<String> {
 
 	@Override
 	public void set(Cursor c, String fieldName) {
-		set(c.getString(c.getColumnIndexOrThrow(fieldName)));
+		set(c, c.getColumnIndexOrThrow(fieldName));
+	}
+	
+	@Override
+	public void set(Cursor c, int columnIndex) {
+		set(c.getString(columnIndex));
 	}
 
 	@Override
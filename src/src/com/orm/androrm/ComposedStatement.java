@@ -23,6 +23,7 @@
 package com.orm.androrm;
 
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 
 /**
@@ -66,15 +67,32 @@ public abstract class ComposedStatement extends Statement {
 	}
 	
 	@Override
-	public String toString() {
+	public Statement withKey(String key) {
+		ComposedStatement copy = (ComposedStatement) super.withKey(key);
+		
+		if(mLeft != null) {
+			copy.mLeft = mLeft.withKey(key);
+		}
+		
+		if(mRight != null) {
+			copy.mRight = mRight.withKey(key);
+		}
+		
+		return copy;
+	}
+	
+	@Override
+	public String toSql(List<Object> args) {
 		if(mRight != null) {
-			return mLeft.toString() + mSeparator + mRight.toString();
+			String left = mLeft.toSql(args);
+			
+			return left + mSeparator + mRight.toSql(args);
 		}
 		
 		if(mLeft != null) {
-			return mLeft.toString();
+			return mLeft.toSql(args);
 		}
 		
-		return super.toString();
+		return super.toSql(args);
 	}
 }
@@ -22,6 +22,8 @@
  */
 package com.orm.androrm;
 
+import android.database.Cursor;
+
 /**
  * This class is the superclass for all database fields,
  * that need a real field in the database. This for example 
@@ -69,6 +71,33 @@ public abstract class DataField<T> implements DatabaseField<T> {
 		mValue = value;
 	}
 	
+	/**
+	 * Names of the columns this field is stored in. By 
+	 * default this is only a column named like the field. 
+	 * 
+	 * @param fieldName	Name of this field in the model.
+	 * @return			Names of the columns.
+	 */
+	public String[] getColumns(String fieldName) {
+		return new String[] { fieldName };
+	}
+	
+	/**
+	 * Reads the value of this field from the column at 
+	 * columnIndex of the {@link Cursor}. This saves looking up 
+	 * the column by name for every row. 
+	 * <br /><br />
+	 * Fields, that are stored in a single column, should 
+	 * override this. By default the value is read by 
+	 * the name of that column. 
+	 * 
+	 * @param c				{@link Cursor} pointing at data.
+	 * @param columnIndex	Index of the column of this field.
+	 */
+	public void set(Cursor c, int columnIndex) {
+		set(c, c.getColumnName(columnIndex));
+	}
+	
 	@Override
 	public String toString() {
 		return String.valueOf(mValue);
@@ -27,15 +27,30 @@ import android.database.Cursor;
 import android.database.SQLException;
 import android.database.sqlite.SQLiteDatabase;
 import android.database.sqlite.SQLiteOpenHelper;
+import android.database.sqlite.SQLiteProgram;
+import android.database.sqlite.SQLiteStatement;
+import android.os.Build;
 import android.util.Log;
-import java.lang.reflect.Constructor;
+
+import com.orm.androrm.LockStats.Operation;
+
 import java.lang.reflect.Field;
 import java.lang.reflect.Modifier;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
-import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 /**
  * This class provides access to the underlying SQLite database.
@@ -73,9 +88,629 @@ public class DatabaseAdapter extends SQLiteOpenHelper {
 	/**
 	 * Closes the current connection to the database. Call this method after every database
 	 * interaction to prevent data leaks.
+	 * <p/>
+	 * Calls to {@link #open()} and {@link #close()} are counted. Only the close matching the
+	 * outermost open releases the connection, so the connection stays open while a transaction
+	 * started by {@link #runInTransaction(TransactionCallback)} is active. In
+	 * {@link #setPersistentConnection(boolean, long) persistent connection mode} the connection is
+	 * kept open until it has been idle for the configured timeout.
 	 */
 	public void close() {
-		super.close();
+		synchronized(mConnectionLock) {
+			if(mOpenCount > 0 && --mOpenCount == 0) {
+				mLastRelease = System.currentTimeMillis();
+
+				if(mPersistentConnection)
+					scheduleIdleClose();
+				else
+					closeConnection();
+			}
+		}
+
+		unLock();
+	}
+
+	/**
+	 * Keeps the connection to the database open between operations instead of closing it on
+	 * every {@link #close()}. This preserves SQLite's page cache between queries. The
+	 * connection is closed once no operation has used it for idleTimeout milliseconds.
+	 *
+	 * @param persistent  True to keep the connection open.
+	 * @param idleTimeout Milliseconds after which an unused connection is closed.
+	 */
+	public void setPersistentConnection(boolean persistent, long idleTimeout) {
+		lock();
+
+		try {
+			synchronized(mConnectionLock) {
+				mPersistentConnection = persistent;
+				mIdleTimeout = idleTimeout;
+
+				if(mOpenCount == 0) {
+					if(persistent)
+						scheduleIdleClose();
+					else
+						closeConnection();
+				}
+			}
+		} finally {
+			unLock();
+		}
+	}
+
+	public boolean isPersistentConnection() {
+		return mPersistentConnection;
+	}
+
+	/**
+	 * @return True if the connection to the database is currently open.
+	 */
+	public boolean isOpen() {
+		synchronized(mConnectionLock) {
+			return mDb != null && mDb.isOpen();
+		}
+	}
+
+	/**
+	 * Turns write-ahead logging on or off. With write-ahead logging SQLite lets readers proceed
+	 * while a write is in progress, so the adapter no longer serialises reads: any number of
+	 * threads can iterate {@link QuerySet query sets} at the same time and only writes (saves,
+	 * deletes, drops and transactions) are executed one after the other.
+	 * <p/>
+	 * Write-ahead logging requires Android 3.0 (API level 11). On older devices this call has no
+	 * effect. Below Android 4.1 (API level 16) turning it off reopens the connection. It must not
+	 * be called from within a transaction.
+	 * <p/>
+	 * NOTE: A thread, that holds a read lock (i.e. while it iterates a cursor), can not write to
+	 * the database. Doing so raises an {@link IllegalStateException} instead of deadlocking.
+	 *
+	 * @param enabled True to enable write-ahead logging.
+	 * @return True if write-ahead logging is active after this call.
+	 */
+	public boolean setWriteAheadLogging(boolean enabled) {
+		if(Build.VERSION.SDK_INT < 11) {
+			if(enabled)
+				Log.w(TAG, "write-ahead logging is not supported on API level " + Build.VERSION.SDK_INT);
+
+			return false;
+		}
+
+		lock();
+
+		try {
+			synchronized(mConnectionLock) {
+				boolean active = mWriteAheadLogging;
+				mWriteAheadLogging = enabled;
+
+				if(mDb != null && mDb.isOpen()) {
+					if(enabled)
+						mWriteAheadLogging = mDb.enableWriteAheadLogging();
+					else if(active)
+						disableWriteAheadLogging();
+				}
+			}
+		} finally {
+			unLock();
+		}
+
+		return mWriteAheadLogging;
+	}
+
+	/**
+	 * Turns write-ahead logging off on the open connection. Has to be called while holding the
+	 * write lock and mConnectionLock.
+	 */
+	private void disableWriteAheadLogging() {
+		if(Build.VERSION.SDK_INT >= 16) {
+			mDb.disableWriteAheadLogging();
+
+			return;
+		}
+
+		// disableWriteAheadLogging() only exists from API level 16. Before that the connection is
+		// reopened, which leaves write-ahead logging off.
+		closeConnection();
+
+		if(mOpenCount > 0)
+			mDb = getWritableDatabase();
+	}
+
+	public boolean isWriteAheadLogging() {
+		return mWriteAheadLogging;
+	}
+
+	/**
+	 * Closes the connection if it is open. Has to be called while holding the write lock and
+	 * mConnectionLock.
+	 */
+	private void closeConnection() {
+		cancelIdleClose();
+
+		if(mDb != null) {
+			// compiled statements belong to the connection
+			mStatementCache.clear();
+			super.close();
+			mDb = null;
+		}
+	}
+
+	private void scheduleIdleClose() {
+		cancelIdleClose();
+
+		if(mDb != null)
+			mIdleClose = getScheduler().schedule(new Runnable() {
+
+				@Override
+				public void run() {
+					lock();
+
+					try {
+						synchronized(mConnectionLock) {
+							if(mOpenCount == 0
+									&& System.currentTimeMillis() - mLastRelease >= mIdleTimeout)
+								closeConnection();
+						}
+					} finally {
+						unLock();
+					}
+				}
+			}, mIdleTimeout, TimeUnit.MILLISECONDS);
+	}
+
+	private void cancelIdleClose() {
+		if(mIdleClose != null) {
+			mIdleClose.cancel(false);
+			mIdleClose = null;
+		}
+	}
+
+	/**
+	 * Executor used for delayed background work of this adapter. It runs on a single daemon
+	 * thread.
+	 *
+	 * @return The scheduler of this adapter.
+	 */
+	synchronized ScheduledExecutorService getScheduler() {
+		if(mScheduler == null)
+			mScheduler = Executors.newSingleThreadScheduledExecutor(daemonThreads("androrm-scheduler"));
+
+		return mScheduler;
+	}
+
+	private static ThreadFactory daemonThreads(final String name) {
+		return new ThreadFactory() {
+
+			@Override
+			public Thread newThread(Runnable r) {
+				Thread thread = new Thread(r, name);
+				thread.setDaemon(true);
+
+				return thread;
+			}
+		};
+	}
+
+	/**
+	 * Switches write-behind mode on or off. In this mode {@link Model#save()} only queues models
+	 * that already have an id. Repeated saves of the same row are coalesced, and the queue is
+	 * written in one transaction every interval milliseconds or as soon as it holds maxEntries
+	 * rows. Queued changes are lost if the process dies before they are flushed, so
+	 * {@link #flush()} should be called whenever they have to be durable.
+	 * <p/>
+	 * Reads go to the database only: a {@link QuerySet} does not see queued saves and keeps
+	 * returning the stored values until the queue has been flushed. Saves inside of
+	 * {@link #runInTransaction(TransactionCallback)} are written right away as part of the
+	 * transaction.
+	 * <p/>
+	 * Switching write-behind mode off flushes the queue.
+	 *
+	 * @param interval   Milliseconds between two flushes. 0 or less switches write-behind mode off.
+	 * @param maxEntries Number of queued rows that triggers a flush right away.
+	 */
+	public void setWriteBehind(long interval, int maxEntries) {
+		synchronized(mWriteBehindQueue) {
+			if(mWriteBehindFlush != null) {
+				mWriteBehindFlush.cancel(false);
+				mWriteBehindFlush = null;
+			}
+
+			mWriteBehind = interval > 0;
+			mWriteBehindMaxEntries = Math.max(maxEntries, 1);
+
+			if(mWriteBehind)
+				mWriteBehindFlush = getScheduler().scheduleWithFixedDelay(mFlushTask,
+						interval, interval, TimeUnit.MILLISECONDS);
+		}
+
+		if(!mWriteBehind)
+			flush();
+	}
+
+	public boolean isWriteBehind() {
+		return mWriteBehind;
+	}
+
+	/**
+	 * @param listener Listener to notify after each flush of the write-behind queue.
+	 */
+	public void setWriteBehindListener(WriteBehindListener listener) {
+		mWriteBehindListener = listener;
+	}
+
+	/**
+	 * Writes all queued saves in one transaction. Must not be called while holding a read lock.
+	 *
+	 * @return Number of models that have been written.
+	 */
+	public int flush() {
+		List<Model> saved = new ArrayList<Model>();
+		List<Model> failed = new ArrayList<Model>();
+
+		Operation previous = beginOperation(Operation.SAVE);
+		open();
+
+		try {
+			// drained under the write lock, so a delete cannot slip in between
+			final List<Model> models = mWriteBehindQueue.drain();
+
+			if(models.isEmpty())
+				return 0;
+
+			try {
+				failed.addAll(runInTransaction(new TransactionCallback<List<Model>>() {
+
+					@Override
+					public List<Model> run(DatabaseAdapter adapter) {
+						List<Model> failed = new ArrayList<Model>();
+
+						for(Model model : models)
+							if(!model.write())
+								failed.add(model);
+
+						return failed;
+					}
+				}));
+
+				for(Model model : models)
+					if(!failed.contains(model))
+						saved.add(model);
+			} catch(RuntimeException e) {
+				Log.e(TAG, "flushing " + models.size() + " queued saves failed", e);
+				failed.clear();
+				failed.addAll(models);
+			}
+		} finally {
+			close();
+			endOperation(previous);
+		}
+
+		WriteBehindListener listener = mWriteBehindListener;
+
+		if(listener != null)
+			listener.onFlush(saved, failed);
+
+		return saved.size();
+	}
+
+	/**
+	 * Queues model for the next flush if write-behind mode is on. Saves made inside of
+	 * {@link #runInTransaction(TransactionCallback)} are never queued, so that they are part of
+	 * the caller's transaction. As the flush writes the queue in a transaction as well, this also
+	 * keeps the related models saved during a flush from being queued again.
+	 *
+	 * @return True if the model has been queued.
+	 */
+	boolean enqueue(Model model) {
+		if(!mWriteBehind || inTransaction())
+			return false;
+
+		if(mWriteBehindQueue.add(model) == mWriteBehindMaxEntries)
+			getScheduler().execute(mFlushTask);
+
+		return true;
+	}
+
+	/**
+	 * Removes a queued save of the row of model.
+	 *
+	 * @return True if a save has been queued.
+	 */
+	boolean dequeue(Model model) {
+		return mWriteBehindQueue.remove(model);
+	}
+
+	private final Runnable mFlushTask = new Runnable() {
+
+		@Override
+		public void run() {
+			try {
+				flush();
+			} catch(RuntimeException e) {
+				Log.e(TAG, "flushing the write-behind queue failed", e);
+			}
+		}
+	};
+
+	/**
+	 * Replaces the executor used for asynchronous reads such as {@link QuerySet#fetchAsync()}. By
+	 * default a fixed pool with one thread per processor is used. Reads only run in parallel if
+	 * {@link #setWriteAheadLogging(boolean) write-ahead logging} is enabled.
+	 *
+	 * @param executor Executor for reads.
+	 */
+	public synchronized void setReadExecutor(ExecutorService executor) {
+		mReadExecutor = executor;
+	}
+
+	/**
+	 * Replaces the executor used for asynchronous writes such as {@link Model#saveAsync()}. By
+	 * default all writes are run one after the other on a single thread, so that they reach the
+	 * database in the order they were submitted. A replacement has to keep this guarantee, if it
+	 * is needed.
+	 *
+	 * @param executor Executor for writes.
+	 */
+	public synchronized void setWriteExecutor(ExecutorService executor) {
+		mWriteExecutor = executor;
+	}
+
+	/**
+	 * Runs a read operation on the read executor.
+	 *
+	 * @param task The read.
+	 * @return {@link Future} of the result.
+	 */
+	public <V> Future<V> submitRead(Callable<V> task) {
+		synchronized(this) {
+			if(mReadExecutor == null)
+				mReadExecutor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(),
+						daemonThreads("androrm-reader"));
+		}
+
+		return mReadExecutor.submit(task);
+	}
+
+	/**
+	 * Runs a write operation on the write executor.
+	 *
+	 * @param task The write.
+	 * @return {@link Future} of the result.
+	 */
+	public <V> Future<V> submitWrite(Callable<V> task) {
+		synchronized(this) {
+			if(mWriteExecutor == null)
+				mWriteExecutor = Executors.newSingleThreadExecutor(daemonThreads("androrm-writer"));
+		}
+
+		return mWriteExecutor.submit(task);
+	}
+
+	/**
+	 * Inserts all given models in a single transaction. For every model class one INSERT
+	 * statement is compiled from the columns the model writes on {@link Model#save()}. It is then
+	 * taken from the {@link StatementCache}, bound and executed for each instance of that class.
+	 * The generated ids are assigned to the models once the transaction has been committed.
+	 * <p/>
+	 * Unlike {@link Model#save()} the relations of the models are not persisted. Only new rows
+	 * are inserted: models with autoincrement, that already have an id, and models without
+	 * autoincrement, that have not been given an id, are skipped.
+	 * <p/>
+	 * If SQLite hands out a row id, that does not fit into the id of a model, the transaction is
+	 * rolled back and a {@link SQLException} is thrown.
+	 *
+	 * @param models Models to insert.
+	 * @return Number of inserted rows.
+	 */
+	public int bulkCreate(final Collection<? extends Model> models) {
+		final List<Model> inserted = new ArrayList<Model>(models.size());
+		final long[] ids = new long[models.size()];
+
+		runInTransaction(new TransactionCallback<Void>() {
+
+			@Override
+			public Void run(DatabaseAdapter adapter) {
+				Map<Class<?>, InsertStatement> statements = new HashMap<Class<?>, InsertStatement>();
+
+				for(Model model : models) {
+					// only new rows are inserted
+					if(model.mId.isAutoincrement() ? model.getId() != 0 : model.getId() == 0)
+						continue;
+
+					ContentValues values = model.getContentValues();
+					InsertStatement insert = statements.get(model.getClass());
+
+					if(insert == null) {
+						insert = new InsertStatement(getTableName(model.getClass()), values);
+						statements.put(model.getClass(), insert);
+					}
+
+					long id = executeInsert(insert.toString(), insert.getBindArgs(values));
+
+					if(id > Integer.MAX_VALUE)
+						throw new SQLException("row id " + id + " of "
+								+ model.getClass().getSimpleName() + " does not fit into an int");
+
+					ids[inserted.size()] = id;
+					inserted.add(model);
+				}
+
+				return null;
+			}
+		});
+
+		for(int i = 0, size = inserted.size(); i < size; i++) {
+			Model model = inserted.get(i);
+
+			if(model.getId() == 0)
+				model.setId((int) ids[i]);
+		}
+
+		return inserted.size();
+	}
+
+	/**
+	 * Binds a value to a compiled statement using the same type mapping as
+	 * {@link SQLiteDatabase#insert(String, String, ContentValues)}.
+	 *
+	 * @param program Compiled statement.
+	 * @param index   1-based index of the placeholder.
+	 * @param value   Value to bind.
+	 */
+	static void bindValue(SQLiteProgram program, int index, Object value) {
+		if(value == null)
+			program.bindNull(index);
+		else if(value instanceof Double || value instanceof Float)
+			program.bindDouble(index, ((Number) value).doubleValue());
+		else if(value instanceof Number)
+			program.bindLong(index, ((Number) value).longValue());
+		else if(value instanceof Boolean)
+			program.bindLong(index, ((Boolean) value) ? 1 : 0);
+		else if(value instanceof byte[])
+			program.bindBlob(index, (byte[]) value);
+		else
+			program.bindString(index, value.toString());
+	}
+
+	/**
+	 * Binds all arguments to a compiled statement. See {@link #bindValue(SQLiteProgram, int,
+	 * Object)}.
+	 */
+	private static void bindValues(SQLiteProgram program, List<Object> args) {
+		program.clearBindings();
+
+		for(int i = 0, size = args.size(); i < size; i++)
+			bindValue(program, i + 1, args.get(i));
+	}
+
+	/**
+	 * Gets the compiled statement for sql. While the calling thread holds the write lock it is
+	 * taken from the {@link StatementCache}, otherwise (concurrent readers in write-ahead logging
+	 * mode) it is compiled for this single use.
+	 */
+	private SQLiteStatement acquireStatement(String sql, boolean cached) {
+		if(cached)
+			return mStatementCache.get(mDb, sql);
+
+		return mDb.compileStatement(sql);
+	}
+
+	private void releaseStatement(SQLiteStatement statement, boolean cached) {
+		if(!cached)
+			statement.close();
+	}
+
+	/**
+	 * Executes an INSERT through the statement cache. The adapter has to be open.
+	 *
+	 * @param sql  INSERT statement with placeholders.
+	 * @param args Bind arguments.
+	 * @return The row id of the inserted row.
+	 */
+	long executeInsert(String sql, List<Object> args) {
+		boolean cached = mLock.isWriteLockedByCurrentThread();
+		SQLiteStatement statement = acquireStatement(sql, cached);
+
+		try {
+			bindValues(statement, args);
+
+			long start = mQueryMonitor.start();
+			long id = statement.executeInsert();
+			mQueryMonitor.finish(mDb, start, sql, args);
+
+			return id;
+		} finally {
+			releaseStatement(statement, cached);
+		}
+	}
+
+	/**
+	 * Executes an UPDATE or DELETE through the statement cache. The adapter has to be open.
+	 *
+	 * @param sql  Statement with placeholders.
+	 * @param args Bind arguments.
+	 * @return Number of affected rows.
+	 */
+	int executeUpdateDelete(String sql, List<Object> args) {
+		boolean cached = mLock.isWriteLockedByCurrentThread();
+		SQLiteStatement statement = acquireStatement(sql, cached);
+
+		try {
+			bindValues(statement, args);
+
+			long start = mQueryMonitor.start();
+
+			if(Build.VERSION.SDK_INT >= 11) {
+				int rows = statement.executeUpdateDelete();
+				mQueryMonitor.finish(mDb, start, sql, args);
+
+				return rows;
+			}
+
+			statement.execute();
+			mQueryMonitor.finish(mDb, start, sql, args);
+		} finally {
+			releaseStatement(statement, cached);
+		}
+
+		return (int) simpleQueryForLong("SELECT changes()", new ArrayList<Object>());
+	}
+
+	/**
+	 * Executes a query returning a single number through the statement cache. The adapter has to
+	 * be open.
+	 *
+	 * @param sql  Query with placeholders.
+	 * @param args Bind arguments.
+	 * @return Value of the first column of the first row.
+	 */
+	long simpleQueryForLong(String sql, List<Object> args) {
+		boolean cached = mLock.isWriteLockedByCurrentThread();
+		SQLiteStatement statement = acquireStatement(sql, cached);
+
+		try {
+			bindValues(statement, args);
+
+			long start = mQueryMonitor.start();
+			long result = statement.simpleQueryForLong();
+			mQueryMonitor.finish(mDb, start, sql, args);
+
+			return result;
+		} finally {
+			releaseStatement(statement, cached);
+		}
+	}
+
+	/**
+	 * Executes a select, that yields a single number, like a {@link SelectStatement#count()
+	 * count}. The adapter has to be opened before.
+	 *
+	 * @param select The query.
+	 * @return Value of the first column of the first row.
+	 */
+	public long queryForLong(SelectStatement select) {
+		List<Object> args = new ArrayList<Object>();
+		String sql = select.toSql(args);
+
+		return simpleQueryForLong(sql, args);
+	}
+
+	/**
+	 * Statistics about reuse of compiled statements can be read from this cache.
+	 *
+	 * @return The {@link StatementCache} of this adapter.
+	 */
+	public StatementCache getStatementCache() {
+		return mStatementCache;
+	}
+
+	/**
+	 * Sets the maximum number of compiled statements kept by the {@link StatementCache}.
+	 *
+	 * @param size Number of statements.
+	 */
+	public void setStatementCacheSize(int size) {
+		lock();
+		mStatementCache.setMaxSize(size);
 		unLock();
 	}
 
@@ -87,11 +722,20 @@ public class DatabaseAdapter extends SQLiteOpenHelper {
 	 * @return Number of affected rows.
 	 */
 	public int delete(String table, Where where) {
+		DeleteStatement delete = new DeleteStatement();
+		delete.from(table)
+				.where(where);
+
+		List<Object> args = new ArrayList<Object>();
+		String sql = delete.toSql(args);
+
 		open();
-		int affectedRows = mDb.delete(table, where.toString().replace(" WHERE ", ""), null);
-		close();
 
-		return affectedRows;
+		try {
+			return executeUpdateDelete(sql, args);
+		} finally {
+			close();
+		}
 	}
 
 	/**
@@ -103,32 +747,82 @@ public class DatabaseAdapter extends SQLiteOpenHelper {
 	 * @return The number of rows affected on update, the rowId on insert, -1 on error.
 	 */
 	public int doInsertOrUpdate(String table, ContentValues values, Where where) {
-		int result;
+		SelectStatement probe = new SelectStatement();
+		probe.from(table)
+				.where(where)
+				.count();
+
+		List<Object> args = new ArrayList<Object>();
+		String sql = probe.toSql(args);
 
 		open();
-		Cursor oldVersion = get(table, where, null);
 
-		boolean b = oldVersion.moveToNext();
-		oldVersion.close();
-		if(b) {
-			String whereClause = null;
-			if(where != null)
-				whereClause = where.toString().replace(" WHERE ", "");
+		try {
+			if(simpleQueryForLong(sql, args) != 0) {
+				UpdateStatement update = new UpdateStatement(table, values);
+				update.where(where);
 
-			result = mDb.update(table, values, whereClause, null);
-		} else {
-			String nullColumnHack = null;
+				args.clear();
+				sql = update.toSql(args);
 
-			if(values.size() == 0)
-				// if no fields are defined on a model instance the nullColumnHack
-				// needs to be utilized in order to insert an empty row. 
-				nullColumnHack = Model.PK;
+				return executeUpdateDelete(sql, args);
+			}
 
-			result = (int) mDb.insertOrThrow(table, nullColumnHack, values);
+			InsertStatement insert = new InsertStatement(table, values);
+
+			return (int) executeInsert(insert.toString(), insert.getBindArgs(values));
+		} finally {
+			close();
 		}
+	}
 
-		close();
-		return result;
+	/**
+	 * Writes a row keyed by its primary key without probing for its existence first. Rows, that
+	 * have no id yet, are inserted straight away. Otherwise the row is updated and only if no row
+	 * with that id exists, it is inserted under that id. As this happens while holding the lock
+	 * of the adapter no other thread can write the row in between.
+	 *
+	 * @param table  The affected table.
+	 * @param values The values to be inserted/ updated.
+	 * @param id     Value of the {@link Model#PK primary key} or 0 if the row is new.
+	 * @return The row id and whether it was inserted or updated.
+	 * @throws SQLException If the row could not be written.
+	 */
+	public UpsertResult upsert(String table, ContentValues values, int id) {
+		open();
+
+		try {
+			if(id != 0) {
+				ContentValues update = values;
+
+				if(update.size() == 0) {
+					// nothing to change, but the update still has to tell us if the row exists.
+					update = new ContentValues();
+					update.put(Model.PK, id);
+				}
+
+				Where where = new Where();
+				where.and(Model.PK, id);
+
+				List<Object> args = new ArrayList<Object>();
+				String sql = new UpdateStatement(table, update).where(where).toSql(args);
+
+				if(executeUpdateDelete(sql, args) != 0)
+					return new UpsertResult(id, false);
+
+				if(!values.containsKey(Model.PK)) {
+					// the row is gone, insert it again under the id the caller knows it by.
+					values = new ContentValues(values);
+					values.put(Model.PK, id);
+				}
+			}
+
+			InsertStatement insert = new InsertStatement(table, values);
+
+			return new UpsertResult(executeInsert(insert.toString(), insert.getBindArgs(values)), true);
+		} finally {
+			close();
+		}
 	}
 
 	/**
@@ -136,6 +830,7 @@ public class DatabaseAdapter extends SQLiteOpenHelper {
 	 */
 	public void drop() {
 		open();
+		mWriteBehindQueue.clear();
 		drop(mDb);
 		onCreate(mDb);
 		close();
@@ -148,41 +843,13 @@ public class DatabaseAdapter extends SQLiteOpenHelper {
 	 */
 	public void drop(String tableName) {
 		open();
+		mStatementCache.clear();
 		String sql = "DROP TABLE IF EXISTS `" + tableName + "`;";
 		mDb.execSQL(sql);
 		onCreate(mDb);
 		close();
 	}
 
-	/**
-	 * Query the database for a specific item.
-	 *
-	 * @param table Query table.
-	 * @param where {@link Where} clause to apply.
-	 * @param limit {@link Limit} clause to apply.
-	 * @return {@link Cursor} that represents the query result.
-	 */
-	private Cursor get(String table, Where where, Limit limit) {
-		String whereClause = null;
-		if(where != null)
-			whereClause = where.toString().replace(" WHERE ", "");
-
-		String limitClause = null;
-		if(limit != null)
-			limitClause = limit.toString().replace(" LIMIT ", "");
-
-		Cursor result = mDb.query(table,
-				null,
-				whereClause,
-				null,
-				null,
-				null,
-				null,
-				limitClause);
-
-		return result;
-	}
-
 	/**
 	 * This opens a new database connection. If a connection or database already exists the system
 	 * will ensure that getWritableDatabase() will return this Database.
@@ -195,17 +862,137 @@ public class DatabaseAdapter extends SQLiteOpenHelper {
 	 */
 	public DatabaseAdapter open() throws SQLException {
 		lock();
-		mDb = getWritableDatabase();
+
+		return acquireConnection();
+	}
+
+	/**
+	 * Same as {@link #open()}, but only announces read access to the database. With
+	 * {@link #setWriteAheadLogging(boolean) write-ahead logging} enabled any number of threads
+	 * can read at the same time. Otherwise this is equal to {@link #open()}.
+	 *
+	 * @return this to enable chaining.
+	 * @throws SQLException
+	 */
+	public DatabaseAdapter openForReading() throws SQLException {
+		lockForReading();
+
+		return acquireConnection();
+	}
+
+	private DatabaseAdapter acquireConnection() {
+		synchronized(mConnectionLock) {
+			if(mOpenCount++ == 0) {
+				cancelIdleClose();
+
+				try {
+					if(mDb == null || !mDb.isOpen())
+						mDb = getWritableDatabase();
+				} catch(RuntimeException e) {
+					mOpenCount--;
+					unLock();
+
+					throw e;
+				}
+			}
+		}
 
 		return this;
 	}
 
+	/**
+	 * Runs the given callback inside a single database transaction. The connection is opened
+	 * once and kept open until the callback returns, so that any number of {@link Model#save()},
+	 * {@link Model#delete()} or {@link QuerySet} calls made by the callback share it. Calls to
+	 * {@link #open()} and {@link #close()} made while the transaction is active do not touch the
+	 * connection.
+	 * <p/>
+	 * The transaction is committed if the callback returns normally and rolled back if it throws.
+	 * Transactions can be nested, in which case the changes are only committed when the
+	 * outermost transaction succeeds.
+	 *
+	 * @param callback The work to run.
+	 * @return The result of the callback.
+	 */
+	public <T> T runInTransaction(TransactionCallback<T> callback) {
+		open();
+		mTransactionDepth++;
+
+		try {
+			mDb.beginTransaction();
+
+			try {
+				T result = callback.run(this);
+				mDb.setTransactionSuccessful();
+
+				return result;
+			} finally {
+				mDb.endTransaction();
+			}
+		} finally {
+			mTransactionDepth--;
+			close();
+		}
+	}
+
+	/**
+	 * Checks if the calling thread is currently running inside of
+	 * {@link #runInTransaction(TransactionCallback)}.
+	 *
+	 * @return True if a transaction is active.
+	 */
+	public boolean inTransaction() {
+		return mLock.isWriteLockedByCurrentThread() && mTransactionDepth > 0;
+	}
+
+	/**
+	 * Executes the given select. All values of the statement are handed to SQLite as bind
+	 * arguments, so that queries, that only differ in their values, share the same SQL.
+	 *
+	 * @param select The query.
+	 * @return {@link Cursor} that represents the query result.
+	 */
 	public Cursor query(SelectStatement select) {
-		return mDb.rawQuery(select.toString(), null);
+		List<Object> args = new ArrayList<Object>();
+		String sql = select.toSql(args);
+
+		return rawQuery(sql, args);
+	}
+
+	private Cursor rawQuery(String sql, List<Object> args) {
+		long start = mQueryMonitor.start();
+		Cursor c = mDb.rawQuery(sql, toArgs(args));
+
+		if(start != 0) {
+			// rawQuery only prepares the statement, it is run when the first window is filled
+			c.getCount();
+			mQueryMonitor.finish(mDb, start, sql, args);
+		}
+
+		return c;
+	}
+
+	/**
+	 * Converts bind arguments collected by {@link Statement#toSql(List)} into the form expected
+	 * by {@link SQLiteDatabase}.
+	 *
+	 * @param args Bind arguments.
+	 * @return The arguments as strings or <code>null</code> if there are none.
+	 */
+	static String[] toArgs(List<Object> args) {
+		if(args.isEmpty())
+			return null;
+
+		String[] result = new String[args.size()];
+
+		for(int i = 0, size = args.size(); i < size; i++)
+			result[i] = String.valueOf(args.get(i));
+
+		return result;
 	}
 
 	public Cursor query(String query) {
-		return mDb.rawQuery(query, null);
+		return rawQuery(query, new ArrayList<Object>());
 	}
 
 	/**
@@ -237,7 +1024,7 @@ public class DatabaseAdapter extends SQLiteOpenHelper {
 				if(modelCache.knowsModel(clazz))
 					return modelCache.getTableDefinitions(clazz);
 
-				T object = getInstance(clazz);
+				T object = getPrototype(clazz);
 				TableDefinition definition = new TableDefinition(getTableName(clazz));
 
 				getFieldDefinitions(object, clazz, definition);
@@ -268,7 +1055,7 @@ public class DatabaseAdapter extends SQLiteOpenHelper {
 
 			modelCache.addModel(clazz);
 
-			for(Field field : getFields(clazz, instance)) {
+			for(ModelField field : getFields(clazz, instance)) {
 				String name = field.getName();
 
 				Object o = field.get(instance);
@@ -288,8 +1075,9 @@ public class DatabaseAdapter extends SQLiteOpenHelper {
 
 	/**
 	 * Retrieves all fields of a given class, that are <ol> <li><b>NOT</b> private</li> <li>Database
-	 * fields</li> </ol> In addition these fields are set to be accessible, so that they can then be
-	 * further processed.
+	 * fields</li> </ol> If {@link ModelMetadata} has been generated for the class, its accessors
+	 * are used. Otherwise the fields are found by reflection and set to be accessible, so that they
+	 * can then be further processed.
 	 *
 	 * @param clazz		  Class to extract the fields from.
 	 * @param instance	Instance of that class.
@@ -297,15 +1085,21 @@ public class DatabaseAdapter extends SQLiteOpenHelper {
 	 * @return {@link List} of all fields, that are database fields, and that are <b>NOT</b>
 	 *            private.
 	 */
-	protected final List<Field> getFields(
+	protected final List<ModelField> getFields(
 			Class<? extends Model> clazz,
 			Model instance) {
 
 		if(modelCache.knowsFields(clazz))
 			return modelCache.fieldsForModel(clazz);
 
+		ModelMetadata<? extends Model> metadata = modelCache.getMetadata(clazz);
+
+		if(metadata != null) {
+			return modelCache.setModelFields(clazz, getGeneratedFields(metadata, instance));
+		}
+
 		Field[] declaredFields = clazz.getDeclaredFields();
-		List<Field> fields = new ArrayList<Field>();
+		List<ModelField> fields = new ArrayList<ModelField>();
 
 		try {
 			for(int i = 0, length = declaredFields.length; i < length; i++) {
@@ -316,7 +1110,7 @@ public class DatabaseAdapter extends SQLiteOpenHelper {
 					Object f = field.get(instance);
 
 					if(isDatabaseField(f))
-						fields.add(field);
+						fields.add(new ModelField.Reflected(field));
 				}
 			}
 		} catch(IllegalAccessException e) {
@@ -324,7 +1118,22 @@ public class DatabaseAdapter extends SQLiteOpenHelper {
 					+ clazz.getSimpleName(), e);
 		}
 
-		modelCache.setModelFields(clazz, fields);
+		return modelCache.setModelFields(clazz, fields);
+	}
+
+	private final <T extends Model> List<ModelField> getGeneratedFields(
+			ModelMetadata<T> metadata,
+			Model instance) {
+
+		List<ModelField> fields = new ArrayList<ModelField>();
+
+		for(int i = 0, length = metadata.getFieldNames().length; i < length; i++) {
+			ModelField.Generated<T> field = new ModelField.Generated<T>(metadata, i);
+
+			// like above, fields, that have not been initialized, are left out
+			if(instance == null || isDatabaseField(field.get(instance)))
+				fields.add(field);
+		}
 
 		return fields;
 	}
@@ -351,7 +1160,7 @@ public class DatabaseAdapter extends SQLiteOpenHelper {
 	private final <T extends Model> List<TableDefinition> getRelationDefinitions(Class<T> clazz) {
 		List<TableDefinition> definitions = new ArrayList<TableDefinition>();
 
-		T object = getInstance(clazz);
+		T object = getPrototype(clazz);
 		getRelationDefinitions(object, clazz, definitions);
 
 		return definitions;
@@ -364,7 +1173,7 @@ public class DatabaseAdapter extends SQLiteOpenHelper {
 			List<TableDefinition> definitions) {
 
 		if(clazz != null && clazz.isInstance(instance)) {
-			for(Field field : getFields(clazz, instance))
+			for(ModelField field : getFields(clazz, instance))
 				try {
 					Object o = field.get(instance);
 
@@ -393,9 +1202,13 @@ public class DatabaseAdapter extends SQLiteOpenHelper {
 		}
 	}
 
-	ModelCache getModelCache() {
+	/**
+	 * @return The {@link ModelCache} holding what this adapter found out about its models.
+	 */
+	public ModelCache getModelCache() {
 		return modelCache;
 	}
+
 	private String FOREIGN_KEY_CONSTRAINTS = "ON";
 
 	public final void setForeignKeyConstraints(boolean on) {
@@ -405,15 +1218,139 @@ public class DatabaseAdapter extends SQLiteOpenHelper {
 			FOREIGN_KEY_CONSTRAINTS = "OFF";
 	}
 	// use this to mediate multi-thread access to this helper. It would have been nice to use the lock in the database
-	// but it is private.
-	private final ReentrantLock mLock = new ReentrantLock(true);
+	// but it is private. Unless write-ahead logging is enabled only the write lock is ever used.
+	private final ReentrantReadWriteLock mLock = new ReentrantReadWriteLock(true);
+	private volatile boolean mWriteAheadLogging = false;
+	// nesting depth of runInTransaction. Only touched by the thread holding the write lock.
+	private int mTransactionDepth;
+	// guards the connection state below, as readers may open and close concurrently.
+	private final Object mConnectionLock = new Object();
+	private int mOpenCount;
+	private boolean mPersistentConnection = false;
+	private long mIdleTimeout;
+	private long mLastRelease;
+	private ScheduledFuture<?> mIdleClose;
+	private ScheduledExecutorService mScheduler;
+	private ExecutorService mReadExecutor;
+	private ExecutorService mWriteExecutor;
+	private final LockMonitor mLockMonitor = new LockMonitor();
+	private final QueryMonitor mQueryMonitor = new QueryMonitor();
+
+	private final WriteBehindQueue mWriteBehindQueue = new WriteBehindQueue();
+	private volatile boolean mWriteBehind;
+	private int mWriteBehindMaxEntries;
+	private ScheduledFuture<?> mWriteBehindFlush;
+	private volatile WriteBehindListener mWriteBehindListener;
+	// compiled statements of the current connection. Only used while holding the write lock.
+	private final StatementCache mStatementCache = new StatementCache(StatementCache.DEFAULT_SIZE);
 
 	void lock() {
-		mLock.lock();
+		// write-ahead logging is only turned on from API level 11, so getReadHoldCount() (API
+		// level 9) is never reached on older devices.
+		if(mWriteAheadLogging
+				&& !mLock.isWriteLockedByCurrentThread()
+				&& mLock.getReadHoldCount() > 0)
+			throw new IllegalStateException("can not write to the database while reading from it on the same thread");
+
+		long start = mLockMonitor.beforeAcquire(mLock);
+		mLock.writeLock().lock();
+		mLockMonitor.afterAcquire(start);
+	}
+
+	void lockForReading() {
+		long start = mLockMonitor.beforeAcquire(mLock);
+
+		// a thread holding the write lock keeps using it, as it can not acquire the read lock
+		// in a way, that can be told apart on release.
+		if(mWriteAheadLogging && !mLock.isWriteLockedByCurrentThread())
+			mLock.readLock().lock();
+		else
+			mLock.writeLock().lock();
+
+		mLockMonitor.afterAcquire(start);
 	}
 
 	void unLock() {
-		mLock.unlock();
+		if(mLock.isWriteLockedByCurrentThread())
+			mLock.writeLock().unlock();
+		else
+			mLock.readLock().unlock();
+
+		mLockMonitor.afterRelease();
+	}
+
+	/**
+	 * Turns the instrumentation of the adapter's lock on or off. While it is on, the time every
+	 * operation waits for and holds the lock is recorded. See {@link #getLockStats()}.
+	 *
+	 * @param enabled True to record lock statistics.
+	 */
+	public void setLockInstrumentation(boolean enabled) {
+		mLockMonitor.setEnabled(enabled);
+	}
+
+	public boolean isLockInstrumentation() {
+		return mLockMonitor.isEnabled();
+	}
+
+	/**
+	 * @return Snapshot of the lock statistics recorded so far.
+	 */
+	public LockStats getLockStats() {
+		return mLockMonitor.snapshot();
+	}
+
+	public void resetLockStats() {
+		mLockMonitor.reset();
+	}
+
+	/**
+	 * Turns the slow query log on or off. While it is on, every query, insert, update and delete
+	 * of the adapter is timed. Statements, that take at least threshold milliseconds, are logged
+	 * together with their EXPLAIN QUERY PLAN and the most recent ones are kept, see
+	 * {@link #getSlowQueries()}.
+	 * <p/>
+	 * As SQLite only runs a query once the first window of its cursor is filled, the log calls
+	 * {@link Cursor#getCount()} right after each query. The time logged for a query therefore
+	 * includes stepping through its whole result to count the rows and filling the first window,
+	 * which may be more than the caller would have read, and this work is done while the log is
+	 * on even for cursors that are never read.
+	 *
+	 * @param threshold  Minimum duration in milliseconds. A negative value turns the log off.
+	 * @param maxEntries Number of slow statements, that are kept.
+	 */
+	public void setSlowQueryLog(long threshold, int maxEntries) {
+		mQueryMonitor.configure(threshold, maxEntries);
+	}
+
+	public boolean isSlowQueryLog() {
+		return mQueryMonitor.isEnabled();
+	}
+
+	/**
+	 * @return The most recent slow statements, oldest first. See
+	 *         {@link #setSlowQueryLog(long, int)}.
+	 */
+	public List<SlowQuery> getSlowQueries() {
+		return mQueryMonitor.getEntries();
+	}
+
+	public void clearSlowQueries() {
+		mQueryMonitor.clear();
+	}
+
+	/**
+	 * Attributes the lock statistics of the current thread to op until
+	 * {@link #endOperation(Operation)} is called.
+	 *
+	 * @return The previous operation.
+	 */
+	Operation beginOperation(Operation op) {
+		return mLockMonitor.begin(op);
+	}
+
+	void endOperation(Operation previous) {
+		mLockMonitor.end(previous);
 	}
 
 	/**
@@ -440,6 +1377,7 @@ public class DatabaseAdapter extends SQLiteOpenHelper {
 	 * @param db {@link SQLiteDatabase}.
 	 */
 	protected void drop(SQLiteDatabase db) {
+		mStatementCache.clear();
 		db.execSQL("PRAGMA foreign_keys=OFF;");
 
 		for(String table : getTables())
@@ -485,15 +1423,20 @@ public class DatabaseAdapter extends SQLiteOpenHelper {
 	public void onOpen(SQLiteDatabase db) {
 		super.onOpen(db);
 
-		if(!db.isReadOnly())
+		if(!db.isReadOnly()) {
+			if(mWriteAheadLogging)
+				mWriteAheadLogging = db.enableWriteAheadLogging();
+
 			// Enable foreign key constraints
 			db.execSQL("PRAGMA foreign_keys=" + FOREIGN_KEY_CONSTRAINTS + ";");
+		}
 	}
 
 	@Override
 	public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
 		Log.w(TAG, "Upgrading database from version " + oldVersion + " to "
 				+ newVersion);
+		mStatementCache.clear();
 		onCreate(db);
 	}
 
@@ -506,9 +1449,25 @@ public class DatabaseAdapter extends SQLiteOpenHelper {
 	protected <T extends Model> T getInstance(Class<T> clazz) {
 		T instance = null;
 		try {
-			Constructor<T> constructor = clazz.getConstructor();
-			instance = constructor.newInstance();
-			instance.setAdapter(this);
+			instance = modelCache.getFactory(clazz).newInstance(this);
+		} catch(Exception e) {
+			Log.e(TAG, "exception thrown while trying to create representation of "
+					+ clazz.getSimpleName(), e);
+		}
+		return instance;
+	}
+
+	/**
+	 * Returns a shared instance of clazz for looking at its fields. See
+	 * {@link ModelFactory#getPrototype(DatabaseAdapter)}.
+	 *
+	 * @param clazz Model class.
+	 * @return The shared instance or null, if clazz can not be instantiated.
+	 */
+	<T extends Model> T getPrototype(Class<T> clazz) {
+		T instance = null;
+		try {
+			instance = modelCache.getFactory(clazz).getPrototype(this);
 		} catch(Exception e) {
 			Log.e(TAG, "exception thrown while trying to create representation of "
 					+ clazz.getSimpleName(), e);
@@ -519,10 +1478,10 @@ public class DatabaseAdapter extends SQLiteOpenHelper {
 			Class<O> originClass,
 			Class<T> targetClass) {
 
-		Field fk = null;
+		ModelField fk = null;
 
 		try {
-			fk = getForeignKeyField(targetClass, originClass, getInstance(originClass));
+			fk = getForeignKeyField(targetClass, originClass, getPrototype(originClass));
 		} catch(IllegalAccessException e) {
 			Log.e(TAG, "an exception has been thrown trying to gather the foreign key field pointing to "
 					+ targetClass.getSimpleName()
@@ -536,33 +1495,20 @@ public class DatabaseAdapter extends SQLiteOpenHelper {
 		return null;
 	}
 
-	protected  <T extends Model, O extends Model> Field getForeignKeyField(
+	protected  <T extends Model, O extends Model> ModelField getForeignKeyField(
 			Class<T> target,
 			Class<O> originClass,
 			O origin) throws IllegalArgumentException, IllegalAccessException {
 
-		Field fk = null;
-
-		if(originClass != null && originClass.isInstance(origin)) {
-			for(Field field : origin.getAdapter().getFields(originClass, origin)) {
-				Object f = field.get(origin);
+		if(originClass != null && originClass.isInstance(origin))
+			for(ModelField field : modelCache.getFieldPlan(originClass, origin, this).getForeignKeys()) {
+				ForeignKeyField<?> fk = (ForeignKeyField<?>) field.get(origin);
 
-				if(f instanceof ForeignKeyField) {
-					ForeignKeyField<?> tmp = (ForeignKeyField<?>) f;
-					Class<? extends Model> t = tmp.getTarget();
-
-					if(t.equals(target)) {
-						fk = field;
-						break;
-					}
-				}
+				if(fk.getTarget().equals(target))
+					return field;
 			}
 
-			if(fk == null)
-				fk = getForeignKeyField(target, Model.getSuperclass(originClass), origin);
-		}
-
-		return fk;
+		return null;
 	}
 
 }
@@ -144,7 +144,12 @@ public class DateField extends DataField<Date> {
 
 	@Override
 	public void set(Cursor c, String fieldName) {
-		fromString(c.getString(c.getColumnIndexOrThrow(fieldName)));
+		set(c, c.getColumnIndexOrThrow(fieldName));
+	}
+	
+	@Override
+	public void set(Cursor c, int columnIndex) {
+		fromString(c.getString(columnIndex));
 	}
 
 	@Override
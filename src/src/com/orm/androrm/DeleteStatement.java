@@ -22,6 +22,8 @@
  */
 package com.orm.androrm;
 
+import java.util.List;
+
 /**
  * Implements a <code>DELETE</code> on the database.
  * 
@@ -44,11 +46,24 @@ public class DeleteStatement implements Query {
 		return this;
 	}
 	
-	@Override
-	public String toString() {
+	/**
+	 * See {@link Statement#toSql(List)}.
+	 */
+	public String toSql(List<Object> args) {
+		String where = "";
+		
+		if(mWhere != null) {
+			where = mWhere.toSql(args);
+		}
+		
 		return "DELETE FROM "
 			+ mFrom
-			+ mWhere;
+			+ where;
+	}
+	
+	@Override
+	public String toString() {
+		return toSql(null);
 	}
 	
 }
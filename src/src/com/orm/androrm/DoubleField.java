@@ -27,11 +27,21 @@ import android.database.Cursor;
 
 /**
  * This is the database field for {@link Double} values. 
+ * They are kept as a primitive double, which 
+ * {@link #getDouble()} and {@link #setDouble(double)}
+ * access directly. 
  * 
  * @author Philipp Giese
  */
 public class DoubleField extends DataField<Double> {
 
+	private double mDouble;
+	/**
+	 * Set, if the value has been set to <code>null</code>
+	 * through {@link #set(Double)}.
+	 */
+	private boolean mNull;
+
 	/**
 	 * Initializes a standard double field without
 	 * restrictions. The maximum length of double 
@@ -58,24 +68,61 @@ public class DoubleField extends DataField<Double> {
 		}
 	}
 	
+	@Override
+	public Double get() {
+		if(mNull) {
+			return null;
+		}
+		
+		return mDouble;
+	}
+	
+	public double getDouble() {
+		return mDouble;
+	}
+	
+	@Override
+	public void set(Double value) {
+		mNull = value == null;
+		mDouble = mNull ? 0.0 : value;
+	}
+	
+	public void setDouble(double value) {
+		mNull = false;
+		mDouble = value;
+	}
+	
 	@Override
 	public void putData(String key, ContentValues values) {
-		values.put(key, get());
+		if(mNull) {
+			values.putNull(key);
+		} else {
+			values.put(key, mDouble);
+		}
 	}
 
 	@Override
 	public void set(Cursor c, String fieldName) {
-		set(c.getDouble(c.getColumnIndexOrThrow(fieldName)));
+		set(c, c.getColumnIndexOrThrow(fieldName));
+	}
+	
+	@Override
+	public void set(Cursor c, int columnIndex) {
+		setDouble(c.getDouble(columnIndex));
 	}
 
 	private void setUp() {
 		mType = "numeric";
-		mValue = 0.0;
 	}
 
 	@Override
 	public void reset() {
-		mValue = 0.0;
+		setDouble(0.0);
+	}
+	
+	@Override
+	public String toString() {
+		return String.valueOf(get());
 	}
 	
 }
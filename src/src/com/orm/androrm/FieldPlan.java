@@ -0,0 +1,150 @@
+/**
+ * Copyright (C) 2012 Clyde Stubbs,   2010 Philipp Giese
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.orm.androrm;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * All database fields of a model class including the inherited ones, sorted by kind. The plan
+ * is built once per class, so saving and loading an instance only iterates arrays instead of
+ * walking up the class hierarchy and looking up the fields of every level.
+ * <p/>
+ * Fields are ordered like the hierarchy is walked: the fields of the class itself first, then
+ * those of its superclasses.
+ */
+public final class FieldPlan {
+
+	private final ModelField[] mFields;
+	private final ModelField[] mDataFields;
+	private final ModelField[] mForeignKeys;
+	private final ModelField[] mManyToMany;
+	private final Class<?>[] mManyToManyOwners;
+	private final ModelField[] mOneToMany;
+
+	private FieldPlan(
+			List<ModelField> fields,
+			List<ModelField> dataFields,
+			List<ModelField> foreignKeys,
+			List<ModelField> manyToMany,
+			List<Class<?>> manyToManyOwners,
+			List<ModelField> oneToMany) {
+
+		mFields = fields.toArray(new ModelField[fields.size()]);
+		mDataFields = dataFields.toArray(new ModelField[dataFields.size()]);
+		mForeignKeys = foreignKeys.toArray(new ModelField[foreignKeys.size()]);
+		mManyToMany = manyToMany.toArray(new ModelField[manyToMany.size()]);
+		mManyToManyOwners = manyToManyOwners.toArray(new Class<?>[manyToManyOwners.size()]);
+		mOneToMany = oneToMany.toArray(new ModelField[oneToMany.size()]);
+	}
+
+	/**
+	 * Collects the fields of clazz and its superclasses.
+	 *
+	 * @param clazz    Model class.
+	 * @param instance Instance of clazz to find out the kind of each field.
+	 * @param adapter  Adapter the model belongs to.
+	 * @return A new plan.
+	 */
+	static FieldPlan create(
+			Class<? extends Model> clazz,
+			Model instance,
+			DatabaseAdapter adapter) {
+
+		List<ModelField> fields = new ArrayList<ModelField>();
+		List<ModelField> dataFields = new ArrayList<ModelField>();
+		List<ModelField> foreignKeys = new ArrayList<ModelField>();
+		List<ModelField> manyToMany = new ArrayList<ModelField>();
+		List<Class<?>> manyToManyOwners = new ArrayList<Class<?>>();
+		List<ModelField> oneToMany = new ArrayList<ModelField>();
+
+		try {
+			for(Class<? extends Model> current = clazz; current != null; current = Model.getSuperclass(current))
+				for(ModelField field : adapter.getFields(current, instance)) {
+					Object o = field.get(instance);
+
+					fields.add(field);
+
+					if(o instanceof DataField)
+						dataFields.add(field);
+
+					if(o instanceof ForeignKeyField)
+						foreignKeys.add(field);
+
+					if(o instanceof ManyToManyField) {
+						manyToMany.add(field);
+						manyToManyOwners.add(current);
+					}
+
+					if(o instanceof OneToManyField)
+						oneToMany.add(field);
+				}
+		} catch(IllegalAccessException e) {
+			throw new IllegalStateException("can not access fields of " + clazz.getSimpleName(), e);
+		}
+
+		return new FieldPlan(fields, dataFields, foreignKeys, manyToMany, manyToManyOwners, oneToMany);
+	}
+
+	/**
+	 * @return All database fields.
+	 */
+	ModelField[] getFields() {
+		return mFields;
+	}
+
+	/**
+	 * @return Fields stored in columns of the model's table, including foreign keys.
+	 */
+	ModelField[] getDataFields() {
+		return mDataFields;
+	}
+
+	ModelField[] getForeignKeys() {
+		return mForeignKeys;
+	}
+
+	ModelField[] getManyToMany() {
+		return mManyToMany;
+	}
+
+	/**
+	 * @return Class, that declares each field of {@link #getManyToMany()}. The relation table is
+	 *         named after it.
+	 */
+	Class<?>[] getManyToManyOwners() {
+		return mManyToManyOwners;
+	}
+
+	ModelField[] getOneToMany() {
+		return mOneToMany;
+	}
+
+	/**
+	 * @return Names of all database fields.
+	 */
+	public List<String> getNames() {
+		List<String> names = new ArrayList<String>(mFields.length);
+
+		for(ModelField field : mFields)
+			names.add(field.getName());
+
+		return names;
+	}
+}
@@ -160,17 +160,29 @@ public class ForeignKeyField<T extends Model> extends DataField<T> implements Re
 	
 	@Override
 	public void set(Cursor c, String fieldName) {
-		set(c.getInt(c.getColumnIndexOrThrow(fieldName)));
+		set(c, c.getColumnIndexOrThrow(fieldName));
+	}
+	
+	@Override
+	public void set(Cursor c, int columnIndex) {
+		set(c.getInt(columnIndex));
 	}
 
 	/**
 	 * As an alternative you don't have to hand in an instance of
 	 * the model class, this field references. You can also only
 	 * provide its id. 
+	 * <br /><br />
+	 * A previously referenced model, that has another id, 
+	 * is released, so that {@link #get()} loads the new one. 
 	 * 
 	 * @param id	{@link Model#PK} of the referenced model.
 	 */
 	public void set(int id) {
+		if(mValue != null && mValue.getId() != id) {
+			mValue = null;
+		}
+		
 		mReference = id;
 	}
 
@@ -0,0 +1,53 @@
+/**
+ * Copyright (C) 2012 Clyde Stubbs,   2010 Philipp Giese
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.orm.androrm;
+
+import java.util.List;
+
+/**
+ * This class can be used to create an IN statement, that
+ * takes its values from a subquery. 
+ * <br /><br />
+ * Example: <br />
+ * <pre>
+ * SELECT * FROM table WHERE id IN (SELECT table FROM relation WHERE other = 1)
+ * </pre>
+ * 
+ * Unlike joins on derived tables this keeps the outer query on 
+ * the plain table, so that SQLite is able to use its indexes. 
+ */
+public class InSelectStatement extends Statement {
+
+	private SelectStatement mSelect;
+	
+	public InSelectStatement(String key, SelectStatement select) {
+		mKey = key;
+		mSelect = select;
+	}
+	
+	public SelectStatement getSelect() {
+		return mSelect;
+	}
+	
+	@Override
+	public String toSql(List<Object> args) {
+		return mKey + " IN (" + mSelect.toSql(args) + ")";
+	}
+	
+}
@@ -51,8 +51,22 @@ public class InStatement extends Statement {
 	}
 	
 	@Override
-	public String toString() {
-		return mKey + " IN ('" + getList() + "')";
+	public String toSql(List<Object> args) {
+		if(args == null) {
+			return mKey + " IN ('" + getList() + "')";
+		}
+		
+		StringBuilder placeholders = new StringBuilder();
+		
+		for(Object value : mValues) {
+			if(placeholders.length() != 0) {
+				placeholders.append(",");
+			}
+			
+			placeholders.append(bind(value, args));
+		}
+		
+		return mKey + " IN (" + placeholders + ")";
 	}
 	
 }
@@ -0,0 +1,92 @@
+/**
+ * Copyright (C) 2012 Clyde Stubbs,   2010 Philipp Giese
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.orm.androrm;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map.Entry;
+
+import android.content.ContentValues;
+
+/**
+ * Parameterized INSERT for a fixed set of columns. The columns are taken from the
+ * {@link ContentValues} of a model, so that every instance of the same model class can be
+ * inserted by only binding new values. Executed through {@link DatabaseAdapter} the compiled
+ * statement is reused from its {@link StatementCache}.
+ */
+public class InsertStatement implements Query {
+
+	private String mTable;
+	private String[] mColumns;
+	private String mSql;
+
+	public InsertStatement(String table, ContentValues values) {
+		mTable = table;
+		mColumns = new String[values.size()];
+
+		int i = 0;
+		for(Entry<String, Object> entry : values.valueSet())
+			mColumns[i++] = entry.getKey();
+	}
+
+	/**
+	 * Gathers the values of a row in the order of the placeholders of this statement.
+	 *
+	 * @param values Values of the row. Columns not known to this statement are ignored.
+	 * @return The bind arguments for this statement.
+	 */
+	public List<Object> getBindArgs(ContentValues values) {
+		List<Object> args = new ArrayList<Object>(mColumns.length);
+
+		for(int i = 0, length = mColumns.length; i < length; i++)
+			args.add(values.get(mColumns[i]));
+
+		return args;
+	}
+
+	@Override
+	public String toString() {
+		if(mSql == null)
+			mSql = buildSql();
+
+		return mSql;
+	}
+
+	private String buildSql() {
+		// if no fields are defined on a model the primary key has to be
+		// given explicitly in order to insert an empty row.
+		if(mColumns.length == 0)
+			return "INSERT INTO `" + mTable + "` (`" + Model.PK + "`) VALUES (NULL)";
+
+		StringBuilder columns = new StringBuilder();
+		StringBuilder placeholders = new StringBuilder();
+
+		for(int i = 0, length = mColumns.length; i < length; i++) {
+			if(i != 0) {
+				columns.append(", ");
+				placeholders.append(", ");
+			}
+
+			columns.append('`').append(mColumns[i]).append('`');
+			placeholders.append('?');
+		}
+
+		return "INSERT INTO `" + mTable + "` (" + columns + ") VALUES (" + placeholders + ")";
+	}
+}
@@ -28,18 +28,29 @@ import android.database.Cursor;
 /**
  * Use this class if you want to represent an 
  * integer field in the database. 
+ * <br /><br />
+ * The value is stored as an int. Use {@link #getInt()} and
+ * {@link #setInt(int)} to access it without boxing. 
+ * {@link #get()} and {@link #set(Integer)} remain for 
+ * compatibility. 
  * 
  * @author Philipp Giese
  */
 public class IntegerField extends DataField<Integer> {
 
+	private int mInt;
+	/**
+	 * Set, if the value has been set to <code>null</code>
+	 * through {@link #set(Integer)}.
+	 */
+	private boolean mNull;
+	
 	/**
 	 * Initializes a new {@link IntegerField} with default 
 	 * value 0.
 	 */
 	public IntegerField() {
 		mType = "integer";
-		mValue = 0;
 	}
 	
 	/**
@@ -59,19 +70,57 @@ public class IntegerField extends DataField<Integer> {
 		}
 	}
 
+	@Override
+	public Integer get() {
+		if(mNull) {
+			return null;
+		}
+		
+		return mInt;
+	}
+	
+	public int getInt() {
+		return mInt;
+	}
+	
+	@Override
+	public void set(Integer value) {
+		mNull = value == null;
+		mInt = mNull ? 0 : value;
+	}
+	
+	public void setInt(int value) {
+		mNull = false;
+		mInt = value;
+	}
+	
 	@Override
 	public void putData(String key, ContentValues values) {
-		values.put(key, get());
+		if(mNull) {
+			values.putNull(key);
+		} else {
+			values.put(key, mInt);
+		}
 	}
 
 	@Override
 	public void set(Cursor c, String fieldName) {
-		set(c.getInt(c.getColumnIndexOrThrow(fieldName)));
+		set(c, c.getColumnIndexOrThrow(fieldName));
+	}
+	
+	@Override
+	public void set(Cursor c, int columnIndex) {
+		setInt(c.getInt(columnIndex));
 	}
 
 	@Override
 	public void reset() {
-		mValue = 0;
+		setInt(0);
+	}
+	
+	@Override
+	public String toString() {
+		return String.valueOf(get());
 	}
 	
 }
@@ -22,6 +22,8 @@
  */
 package com.orm.androrm;
 
+import java.util.List;
+
 /**
  * This class is the abstract representation of a JOIN
  * statement. 
@@ -37,12 +39,14 @@ public class JoinStatement {
 	private String mLeftColumn;
 	private String mRightColumn;
 
-	private String buildStatement() {
+	private String buildStatement(List<Object> args) {
+		String left = mLeft.toSql(args);
+		
 		String join = "(" +
-				mLeft.toString() + 
+				left + 
 			") AS " + mLeftAlias + 
 			" JOIN (" +
-				mRight.toString() +
+				mRight.toSql(args) +
 			") AS " + mRightAlias +
 			" ON " + 
 				mLeftAlias + "." + mLeftColumn + 
@@ -132,8 +136,15 @@ public class JoinStatement {
 		return right(select, as);
 	}
 	
+	/**
+	 * See {@link Statement#toSql(List)}.
+	 */
+	public String toSql(List<Object> args) {
+		return buildStatement(args);
+	}
+	
 	@Override
 	public String toString() {
-		return buildStatement();
+		return buildStatement(null);
 	}
 }
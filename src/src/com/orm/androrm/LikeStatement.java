@@ -22,6 +22,8 @@
  */
 package com.orm.androrm;
 
+import java.util.List;
+
 /**
  * This class can be used to create LIKE statement
  * for queries on the database. 
@@ -54,16 +56,14 @@ public class LikeStatement extends Statement {
 	}
 	
 	@Override
-	public String toString() {
-		String stmt = mKey + " LIKE '";
+	public String toSql(List<Object> args) {
+		String pattern = mValue + "%";
 		
 		if(!mMatchBeginning) {
-			stmt += "%";
+			pattern = "%" + pattern;
 		}
 		
-		stmt += mValue + "%'";
-		
-		return stmt;
+		return mKey + " LIKE " + bind(pattern, args);
 	}
 
 }
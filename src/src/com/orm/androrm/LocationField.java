@@ -49,6 +49,11 @@ public class LocationField extends DataField<Location> {
 		return definition;
 	}
 	
+	@Override
+	public String[] getColumns(String fieldName) {
+		return new String[] { fieldName + "Lat", fieldName + "Lng" };
+	}
+	
 	@Override
 	public void putData(String fieldName, ContentValues values) {
 		double lat = 0.0;
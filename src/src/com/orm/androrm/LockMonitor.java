@@ -0,0 +1,235 @@
+/**
+ * Copyright (C) 2012 Clyde Stubbs,   2010 Philipp Giese
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.orm.androrm;
+
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import com.orm.androrm.LockStats.Operation;
+
+/**
+ * Records how long threads wait for and hold the lock of a {@link DatabaseAdapter}. Only the
+ * outermost acquisition of a thread is measured. While disabled, the monitor only costs a
+ * volatile read per lock operation.
+ * <p/>
+ * The nesting of acquisitions is counted per thread instead of asking the lock, as
+ * ReentrantReadWriteLock.getReadHoldCount() is not available before API level 9.
+ */
+class LockMonitor {
+
+	private static final int OPERATIONS = Operation.values().length;
+	private static final int BUCKETS = LockStats.BUCKET_BOUNDS.length + 1;
+
+	private volatile boolean mEnabled;
+	// incremented whenever the monitor is enabled, so that depths counted before are dropped
+	private volatile int mGeneration;
+
+	private final ThreadLocal<Operation> mOperation = new ThreadLocal<Operation>();
+	private final ThreadLocal<Hold> mHold = new ThreadLocal<Hold>() {
+
+		@Override
+		protected Hold initialValue() {
+			return new Hold();
+		}
+	};
+
+	/**
+	 * Outermost acquisition of the current thread and the number of acquisitions, that have
+	 * not been released yet.
+	 */
+	private static final class Hold {
+		long mAcquired;
+		int mOperation;
+		int mDepth;
+		int mGeneration;
+	}
+
+	private long[] mCount = new long[OPERATIONS];
+	private long[] mWaitTime = new long[OPERATIONS];
+	private long[] mMaxWait = new long[OPERATIONS];
+	private long[] mHoldTime = new long[OPERATIONS];
+	private long[] mMaxHold = new long[OPERATIONS];
+	private long[][] mWaitHistogram = new long[OPERATIONS][BUCKETS];
+	private long[][] mHoldHistogram = new long[OPERATIONS][BUCKETS];
+	private int mMaxQueueLength;
+	private long mQueueLengthSum;
+	private long mQueueSamples;
+
+	synchronized void setEnabled(boolean enabled) {
+		if(enabled && !mEnabled)
+			mGeneration++;
+
+		mEnabled = enabled;
+	}
+
+	boolean isEnabled() {
+		return mEnabled;
+	}
+
+	/**
+	 * Tags all following lock acquisitions of the current thread with op.
+	 *
+	 * @return The previous tag, that has to be passed to {@link #end(Operation)}.
+	 */
+	Operation begin(Operation op) {
+		if(!mEnabled)
+			return null;
+
+		Operation previous = mOperation.get();
+		mOperation.set(op);
+
+		return previous;
+	}
+
+	void end(Operation previous) {
+		if(mEnabled)
+			mOperation.set(previous);
+	}
+
+	/**
+	 * Has to be called right before the lock is acquired.
+	 *
+	 * @return Start of the wait or 0 if it is not measured.
+	 */
+	long beforeAcquire(ReentrantReadWriteLock lock) {
+		if(!mEnabled)
+			return 0;
+
+		Hold hold = mHold.get();
+
+		if(hold.mGeneration != mGeneration) {
+			hold.mGeneration = mGeneration;
+			hold.mDepth = 0;
+			hold.mAcquired = 0;
+		}
+
+		if(hold.mDepth++ > 0)
+			return 0;
+
+		int queueLength = lock.getQueueLength();
+
+		synchronized(this) {
+			if(queueLength > mMaxQueueLength)
+				mMaxQueueLength = queueLength;
+
+			mQueueLengthSum += queueLength;
+			mQueueSamples++;
+		}
+
+		return System.nanoTime();
+	}
+
+	/**
+	 * Has to be called right after the lock has been acquired.
+	 *
+	 * @param start Value returned by {@link #beforeAcquire(ReentrantReadWriteLock)}.
+	 */
+	void afterAcquire(long start) {
+		if(start == 0)
+			return;
+
+		long now = System.nanoTime();
+		Operation op = mOperation.get();
+
+		Hold hold = mHold.get();
+		hold.mAcquired = now;
+		hold.mOperation = op == null ? Operation.OTHER.ordinal() : op.ordinal();
+
+		record(hold.mOperation, now - start, mCount, mWaitTime, mMaxWait, mWaitHistogram);
+	}
+
+	/**
+	 * Has to be called right after the lock has been released.
+	 */
+	void afterRelease() {
+		if(!mEnabled)
+			return;
+
+		Hold hold = mHold.get();
+
+		// acquired while the monitor was disabled or still held by an outer acquisition
+		if(hold.mGeneration != mGeneration || hold.mDepth == 0 || --hold.mDepth > 0)
+			return;
+
+		if(hold.mAcquired != 0) {
+			// attributed to the operation, that acquired the lock, as cursors are released later
+			record(hold.mOperation, System.nanoTime() - hold.mAcquired,
+					null, mHoldTime, mMaxHold, mHoldHistogram);
+			hold.mAcquired = 0;
+		}
+	}
+
+	private synchronized void record(
+			int i,
+			long time,
+			long[] count,
+			long[] total,
+			long[] max,
+			long[][] histogram) {
+
+		if(count != null)
+			count[i]++;
+
+		total[i] += time;
+
+		if(time > max[i])
+			max[i] = time;
+
+		long micros = time / 1000;
+		int bucket = 0;
+
+		while(bucket < LockStats.BUCKET_BOUNDS.length && micros >= LockStats.BUCKET_BOUNDS[bucket])
+			bucket++;
+
+		histogram[i][bucket]++;
+	}
+
+	synchronized LockStats snapshot() {
+		long[][] waitHistogram = new long[OPERATIONS][];
+		long[][] holdHistogram = new long[OPERATIONS][];
+
+		for(int i = 0; i < OPERATIONS; i++) {
+			waitHistogram[i] = mWaitHistogram[i].clone();
+			holdHistogram[i] = mHoldHistogram[i].clone();
+		}
+
+		return new LockStats(mCount.clone(),
+				mWaitTime.clone(),
+				mMaxWait.clone(),
+				mHoldTime.clone(),
+				mMaxHold.clone(),
+				waitHistogram,
+				holdHistogram,
+				mMaxQueueLength,
+				mQueueLengthSum,
+				mQueueSamples);
+	}
+
+	synchronized void reset() {
+		mCount = new long[OPERATIONS];
+		mWaitTime = new long[OPERATIONS];
+		mMaxWait = new long[OPERATIONS];
+		mHoldTime = new long[OPERATIONS];
+		mMaxHold = new long[OPERATIONS];
+		mWaitHistogram = new long[OPERATIONS][BUCKETS];
+		mHoldHistogram = new long[OPERATIONS][BUCKETS];
+		mMaxQueueLength = 0;
+		mQueueLengthSum = 0;
+		mQueueSamples = 0;
+	}
+}
@@ -0,0 +1,157 @@
+/**
+ * Copyright (C) 2012 Clyde Stubbs,   2010 Philipp Giese
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.orm.androrm;
+
+/**
+ * Snapshot of the lock statistics of a {@link DatabaseAdapter}. See
+ * {@link DatabaseAdapter#setLockInstrumentation(boolean)}.
+ * <p/>
+ * Wait times are measured from the call to open() until the lock has been acquired. Hold times
+ * are measured from then until the matching close() released it. Nested acquisitions by a
+ * thread, that already holds the lock, are not counted separately. All times are given in
+ * nanoseconds.
+ */
+public class LockStats {
+
+	/**
+	 * Operation, that acquired the lock.
+	 */
+	public enum Operation {
+		SAVE, DELETE, FETCH, COUNT, OTHER
+	}
+
+	/**
+	 * Upper bounds of the histogram buckets in microseconds. The last bucket takes all times
+	 * above the last bound.
+	 */
+	public static final long[] BUCKET_BOUNDS = { 10, 100, 1000, 10000, 100000, 1000000 };
+
+	private final long[] mCount;
+	private final long[] mWaitTime;
+	private final long[] mMaxWait;
+	private final long[] mHoldTime;
+	private final long[] mMaxHold;
+	private final long[][] mWaitHistogram;
+	private final long[][] mHoldHistogram;
+	private final int mMaxQueueLength;
+	private final long mQueueLengthSum;
+	private final long mQueueSamples;
+
+	LockStats(
+			long[] count,
+			long[] waitTime,
+			long[] maxWait,
+			long[] holdTime,
+			long[] maxHold,
+			long[][] waitHistogram,
+			long[][] holdHistogram,
+			int maxQueueLength,
+			long queueLengthSum,
+			long queueSamples) {
+
+		mCount = count;
+		mWaitTime = waitTime;
+		mMaxWait = maxWait;
+		mHoldTime = holdTime;
+		mMaxHold = maxHold;
+		mWaitHistogram = waitHistogram;
+		mHoldHistogram = holdHistogram;
+		mMaxQueueLength = maxQueueLength;
+		mQueueLengthSum = queueLengthSum;
+		mQueueSamples = queueSamples;
+	}
+
+	/**
+	 * @return Number of times the lock has been acquired for op.
+	 */
+	public long getCount(Operation op) {
+		return mCount[op.ordinal()];
+	}
+
+	public long getWaitTime(Operation op) {
+		return mWaitTime[op.ordinal()];
+	}
+
+	public long getMaxWaitTime(Operation op) {
+		return mMaxWait[op.ordinal()];
+	}
+
+	public long getHoldTime(Operation op) {
+		return mHoldTime[op.ordinal()];
+	}
+
+	public long getMaxHoldTime(Operation op) {
+		return mMaxHold[op.ordinal()];
+	}
+
+	/**
+	 * @return Number of waits of op per bucket of {@link #BUCKET_BOUNDS}.
+	 */
+	public long[] getWaitHistogram(Operation op) {
+		return mWaitHistogram[op.ordinal()].clone();
+	}
+
+	/**
+	 * @return Number of holds of op per bucket of {@link #BUCKET_BOUNDS}.
+	 */
+	public long[] getHoldHistogram(Operation op) {
+		return mHoldHistogram[op.ordinal()].clone();
+	}
+
+	/**
+	 * @return Largest number of threads, that were already waiting for the lock when another
+	 *         thread tried to acquire it.
+	 */
+	public int getMaxQueueLength() {
+		return mMaxQueueLength;
+	}
+
+	/**
+	 * @return Average number of threads, that were already waiting for the lock when another
+	 *         thread tried to acquire it, or 0 if the lock has not been acquired.
+	 */
+	public double getAverageQueueLength() {
+		if(mQueueSamples == 0)
+			return 0;
+
+		return (double) mQueueLengthSum / mQueueSamples;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder result = new StringBuilder("queue="
+				+ Math.round(getAverageQueueLength() * 100) / 100.0
+				+ " (max " + mMaxQueueLength + ")");
+
+		for(Operation op : Operation.values()) {
+			int i = op.ordinal();
+
+			if(mCount[i] == 0)
+				continue;
+
+			result.append(", " + op + ": count=" + mCount[i]
+					+ " wait=" + mWaitTime[i] / mCount[i] / 1000 + "us"
+					+ " (max " + mMaxWait[i] / 1000 + "us)"
+					+ " hold=" + mHoldTime[i] / mCount[i] / 1000 + "us"
+					+ " (max " + mMaxHold[i] / 1000 + "us)");
+		}
+
+		return result.toString();
+	}
+}
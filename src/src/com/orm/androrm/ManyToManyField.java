@@ -58,16 +58,6 @@ public class ManyToManyField<L extends Model, R extends Model>
 		return querySet;
 	}
 
-	private JoinStatement getJoin(String leftAlias, String rightAlias, int id) {
-		JoinStatement join = new JoinStatement();
-
-		join.left(model.getAdapter().getTableName(mTargetClass), leftAlias)
-				.right(getRightJoinSide(id), rightAlias)
-				.on(Model.PK, model.getAdapter().getTableName(mTargetClass));
-
-		return join;
-	}
-
 	public ForeignKeyField<L> getLeftLinkDescriptor() {
 		return new ForeignKeyField<L>(mOriginClass, model);
 	}
@@ -76,11 +66,18 @@ public class ManyToManyField<L extends Model, R extends Model>
 		return new ForeignKeyField<R>(mTargetClass, model);
 	}
 
+	/**
+	 * Selects all targets related to the origin with the given id
+	 * directly from the target table, so that further filters can
+	 * be added to the WHERE clause of this select.
+	 */
 	private SelectStatement getQuery(int id) {
-		SelectStatement select = new SelectStatement();
+		Where where = new Where();
+		where.setStatement(new InSelectStatement(Model.PK, getRelatedIds(id)));
 
-		select.select("a.*")
-				.from(getJoin("a", "b", id));
+		SelectStatement select = new SelectStatement();
+		select.from(model.getAdapter().getTableName(mTargetClass))
+				.where(where);
 
 		return select;
 	}
@@ -89,7 +86,7 @@ public class ManyToManyField<L extends Model, R extends Model>
 		return mTableName;
 	}
 
-	private SelectStatement getRightJoinSide(int id) {
+	private SelectStatement getRelatedIds(int id) {
 		String leftTable = model.getAdapter().getTableName(mOriginClass);
 		String rightTable = model.getAdapter().getTableName(mTargetClass);
 
@@ -98,18 +95,9 @@ public class ManyToManyField<L extends Model, R extends Model>
 
 		SelectStatement relation = new SelectStatement();
 		relation.from(mTableName)
-				.select(leftTable, rightTable)
+				.select(rightTable)
 				.where(where);
 
-		JoinStatement join = new JoinStatement();
-		join.left(relation, "left")
-				.right(rightTable, "right")
-				.on(rightTable, Model.PK);
-
-		SelectStatement select = new SelectStatement();
-		select.from(join)
-				.select("left." + rightTable + " AS " + rightTable);
-
-		return select;
+		return relation;
 	}
 }
@@ -22,9 +22,12 @@ import android.content.ContentValues;
 import android.database.Cursor;
 import android.util.Log;
 import java.lang.reflect.Constructor;
-import java.lang.reflect.Field;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+
+import com.orm.androrm.LockStats.Operation;
 
 /**
  * This is the superclass of all models, that can be stored/ read to/ from the database
@@ -80,7 +83,7 @@ public abstract class Model implements Comparable<Model> {
 	 * will be considered.
 	 *
 	 * @param <T>		  Type of the object.
-	 * @param field	 Field of the object, that a value shall be assigned to.
+	 * @param field	 ModelField of the object, that a value shall be assigned to.
 	 * @param object	Object instance of type <T>.
 	 * @param c	     Database {@link Cursor}
 	 *
@@ -88,7 +91,7 @@ public abstract class Model implements Comparable<Model> {
 	 * @throws IllegalAccessException
 	 */
 	private <T extends Model> void assignFieldValue(
-			Field field,
+			ModelField field,
 			Cursor c) throws IllegalArgumentException, IllegalAccessException {
 
 		Object o = field.get(this);
@@ -106,8 +109,22 @@ public abstract class Model implements Comparable<Model> {
 
 		T object = adapter.getInstance(clazz);
 
+		return createObject(clazz, c, object,
+				adapter.getModelCache().getRowMapper(clazz, c, object, adapter));
+	}
+
+	/**
+	 * Fills object with the current row of c using mapper. Use this when creating many objects
+	 * from the same cursor.
+	 */
+	static <T extends Model> T createObject(
+			Class<T> clazz,
+			Cursor c,
+			T object,
+			RowMapper<T> mapper) {
+
 		try {
-			object.fillUpData(clazz, c);
+			mapper.map(object, c);
 		} catch(IllegalAccessException e) {
 			Log.e(TAG, "exception thrown while filling instance of "
 					+ clazz.getSimpleName()
@@ -121,29 +138,27 @@ public abstract class Model implements Comparable<Model> {
 			Class<T> clazz,
 			Cursor c) throws IllegalArgumentException, IllegalAccessException {
 
-		if(clazz != null && clazz.isInstance(this)) {
-
-			for(Field field : mAdapter.getFields(clazz, this))
+		if(clazz != null && clazz.isInstance(this))
+			for(ModelField field : getFieldPlan(clazz).getDataFields())
 				assignFieldValue(field, c);
+	}
 
-			fillUpData(getSuperclass(clazz), c);
-		}
+	/**
+	 * @return The {@link FieldPlan} of clazz, which has to be this class or one of its
+	 *         superclasses.
+	 */
+	FieldPlan getFieldPlan(Class<? extends Model> clazz) {
+		return mAdapter.getModelCache().getFieldPlan(clazz, this, mAdapter);
 	}
 
 	private <T extends Model> List<String> getEligibleFields(
 			Class<? extends Model> clazz,
 			T instance) {
 
-		List<String> eligableFields = new ArrayList<String>();
-
-		if(clazz != null) {
-			for(Field field : mAdapter.getFields(clazz, instance))
-				eligableFields.add(field.getName());
-
-			eligableFields.addAll(getEligibleFields(getSuperclass(clazz), instance));
-		}
+		if(clazz != null && clazz.isInstance(instance))
+			return mAdapter.getModelCache().getFieldPlan(clazz, instance, mAdapter).getNames();
 
-		return eligableFields;
+		return new ArrayList<String>();
 	}
 
 	private <T extends Model> void raiseFieldExecption(T instance, String fieldName) {
@@ -155,17 +170,17 @@ public abstract class Model implements Comparable<Model> {
 				+ getEligibleFields(instance.getClass(), instance).toString());
 	}
 
-	protected <T extends Model> Field getField(
+	protected <T extends Model> ModelField getField(
 			Class<T> clazz,
 			T instance,
 			String fieldName) {
 
-		Field field = null;
+		ModelField field = null;
 
 		if(clazz != null) {
-			if(getModelCache().knowsFields(clazz))
-				if(getModelCache().modelHasField(clazz, fieldName))
-					field = getModelCache().getField(clazz, fieldName);
+			// makes sure the fields of clazz are known to the cache
+			mAdapter.getFields(clazz, instance);
+			field = getModelCache().getField(clazz, fieldName);
 
 			if(field == null)
 				field = getField(getSuperclass(clazz), instance, fieldName);
@@ -185,7 +200,7 @@ public abstract class Model implements Comparable<Model> {
 			Class<T> target) throws IllegalArgumentException, IllegalAccessException {
 
 		if(originClass != null && originClass.isInstance(origin)) {
-			Field fkField = mAdapter.getForeignKeyField(target, originClass, origin);
+			ModelField fkField = mAdapter.getForeignKeyField(target, originClass, origin);
 
 			if(fkField != null)
 				return (ForeignKeyField<T>) fkField.get(origin);
@@ -246,26 +261,49 @@ public abstract class Model implements Comparable<Model> {
 			ContentValues values,
 			Class<T> clazz) throws IllegalArgumentException, IllegalAccessException {
 
-		if(clazz != null && clazz.isInstance(this)) {
-			for(Field field : mAdapter.getFields(clazz, this)) {
-				Object o = field.get(this);
-				String fieldName = field.getName();
+		if(clazz != null && clazz.isInstance(this))
+			for(ModelField field : getFieldPlan(clazz).getDataFields())
+				putValue(field.get(this), field.getName(), values);
+	}
 
-				putValue(o, fieldName, values);
-			}
+	/**
+	 * Gathers the values of all data fields of this instance the way {@link #save()} writes
+	 * them.
+	 *
+	 * @return The values of this instance.
+	 */
+	ContentValues getContentValues() {
+		ContentValues values = new ContentValues();
 
-			collectData(values, getSuperclass(clazz));
+		try {
+			collectData(values, getClass());
+		} catch(IllegalAccessException e) {
+			Log.e(TAG, "exception thrown while gathering data from object", e);
 		}
+
+		return values;
 	}
 
 	public <T extends Model> boolean delete() {
+		Operation previous = mAdapter.beginOperation(Operation.DELETE);
+
+		try {
+			return deleteRow();
+		} finally {
+			mAdapter.endOperation(previous);
+		}
+	}
+
+	private boolean deleteRow() {
 		if(getId() != 0) {
+			boolean queued = mAdapter.dequeue(this);
+
 			Where where = new Where();
 			where.and(PK, getId());
 
 			int affectedRows = mAdapter.delete(mAdapter.getTableName(getClass()), where);
 
-			if(affectedRows != 0) {
+			if(affectedRows != 0 || queued) {
 				setId(0);
 
 				return resetFields();
@@ -275,11 +313,25 @@ public abstract class Model implements Comparable<Model> {
 		return false;
 	}
 
-	private <T extends Model> boolean resetFields() {
-		List<Field> fields = mAdapter.getFields(getClass(), this);
+	/**
+	 * Runs {@link #delete()} on the write executor of the adapter. See
+	 * {@link DatabaseAdapter#setWriteExecutor}.
+	 *
+	 * @return {@link Future} of the result of {@link #delete()}.
+	 */
+	public Future<Boolean> deleteAsync() {
+		return mAdapter.submitWrite(new Callable<Boolean>() {
 
+			@Override
+			public Boolean call() {
+				return delete();
+			}
+		});
+	}
+
+	private <T extends Model> boolean resetFields() {
 		try {
-			for(Field field : fields) {
+			for(ModelField field : getFieldPlan(getClass()).getFields()) {
 				Object o = field.get(this);
 
 				if(o instanceof AndrormField) {
@@ -308,11 +360,11 @@ public abstract class Model implements Comparable<Model> {
 	}
 
 	public int getId() {
-		return mId.get();
+		return mId.getInt();
 	}
 
 	public void setId(int id) {
-		mId.set(id);
+		mId.setInt(id);
 	}
 
 	private boolean handledByPrimaryKey(Object field) {
@@ -333,18 +385,15 @@ public abstract class Model implements Comparable<Model> {
 			Class<T> clazz) throws IllegalArgumentException, IllegalAccessException, NoSuchFieldException {
 
 		if(clazz != null && clazz.isInstance(this)) {
+			FieldPlan plan = getFieldPlan(clazz);
+			ModelField[] manyToMany = plan.getManyToMany();
+			Class<?>[] owners = plan.getManyToManyOwners();
 
-			for(Field field : mAdapter.getFields(clazz, this)) {
-				Object o = field.get(this);
-
-				if(o instanceof ManyToManyField)
-					saveM2MToDatabase(clazz, o);
-
-				if(o instanceof OneToManyField)
-					saveO2MToDatabase(o);
-			}
+			for(int i = 0; i < manyToMany.length; i++)
+				saveM2MToDatabase(owners[i].asSubclass(Model.class), manyToMany[i].get(this));
 
-			persistRelations(getSuperclass(clazz));
+			for(ModelField field : plan.getOneToMany())
+				saveO2MToDatabase(field.get(this));
 		}
 	}
 
@@ -361,17 +410,55 @@ public abstract class Model implements Comparable<Model> {
 		}
 	}
 
+	/**
+	 * Writes this instance to the database. If the adapter is in
+	 * {@link DatabaseAdapter#setWriteBehind(long, int) write-behind mode} and the instance already
+	 * has an id, it is only queued and written by the next flush, unless this is called inside of
+	 * {@link DatabaseAdapter#runInTransaction(TransactionCallback)}.
+	 *
+	 * @return True if the instance has been saved or queued.
+	 */
 	public boolean save() {
+		if(getId() != 0 && mAdapter.enqueue(this))
+			return true;
+
 		if(mId.isAutoincrement() || getId() != 0)
-			return save(getId(), new ContentValues());
+			return write();
 
 		return false;
 	}
 
+	/**
+	 * Writes this instance to the database right away.
+	 */
+	boolean write() {
+		return save(getId(), new ContentValues());
+	}
+
+	/**
+	 * Runs {@link #save()} on the write executor of the adapter. Writes are executed in the
+	 * order they were submitted. The values are read from the instance when the write is
+	 * executed, so it should not be changed until the returned {@link Future} is done.
+	 *
+	 * @return {@link Future} of the result of {@link #save()}.
+	 */
+	public Future<Boolean> saveAsync() {
+		return mAdapter.submitWrite(new Callable<Boolean>() {
+
+			@Override
+			public Boolean call() {
+				return save();
+			}
+		});
+	}
+
 	public boolean save(int id) {
 		if(!mId.isAutoincrement()) {
 			setId(id);
 
+			if(id != 0 && mAdapter.enqueue(this))
+				return true;
+
 			ContentValues values = new ContentValues();
 			values.put(PK, id);
 
@@ -381,7 +468,20 @@ public abstract class Model implements Comparable<Model> {
 		return false;
 	}
 
-	private <T extends Model> boolean save(
+	private boolean save(
+			int id,
+			ContentValues values) {
+
+		Operation previous = mAdapter.beginOperation(Operation.SAVE);
+
+		try {
+			return saveRow(id, values);
+		} finally {
+			mAdapter.endOperation(previous);
+		}
+	}
+
+	private boolean saveRow(
 			int id,
 			ContentValues values) {
 
@@ -391,15 +491,8 @@ public abstract class Model implements Comparable<Model> {
 			Log.e(TAG, "exception thrown while gathering data from object", e);
 		}
 
-		Where where = new Where();
-		where.and(PK, id);
-
-		int rowID = mAdapter.doInsertOrUpdate(mAdapter.getTableName(getClass()), values, where);
-
-		if(rowID == -1) {
-			setId(0);
-			return false;
-		}
+		UpsertResult result = mAdapter.upsert(mAdapter.getTableName(getClass()), values, id);
+		int rowID = (int) result.getRowId();
 
 		if(getId() == 0)
 			setId(rowID);
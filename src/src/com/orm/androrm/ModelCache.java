@@ -23,100 +23,274 @@
 
 package com.orm.androrm;
 
-import java.lang.reflect.Field;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
+import android.database.Cursor;
+
+/**
+ * Caches everything the ORM finds out about model classes. 
+ * <br /><br />
+ * All entries are immutable once they have been published, 
+ * and all maps are concurrent. So the cache can be read 
+ * from any thread without locking. If two threads find out 
+ * about the same class at the same time, the entry, that is 
+ * published first, wins and is returned to both of them. 
+ */
 public class ModelCache {
 	
-	private List<Class<? extends Model>> KNOWN_MODELS = new ArrayList<Class<? extends Model>>();
+	/**
+	 * Database fields declared by a model class. 
+	 */
+	private static final class ModelFields {
+		
+		private final List<ModelField> mFields;
+		private final Map<String, ModelField> mByName;
+		
+		private ModelFields(List<ModelField> fields) {
+			Map<String, ModelField> byName = new HashMap<String, ModelField>();
+			
+			for(ModelField field : fields) {
+				byName.put(field.getName(), field);
+			}
+			
+			mFields = Collections.unmodifiableList(new ArrayList<ModelField>(fields));
+			mByName = byName;
+		}
+	}
+	
+	/**
+	 * Marks classes without generated metadata, as concurrent 
+	 * maps can't hold null. 
+	 */
+	private static final Object NO_METADATA = new Object();
+	
+	private final ConcurrentMap<Class<? extends Model>, Boolean> mModels = new ConcurrentHashMap<Class<? extends Model>, Boolean>();
 	
-	private Map<Class<? extends Model>, List<TableDefinition>> TABLE_DEFINITIONS = new HashMap<Class<? extends Model>, List<TableDefinition>>();
+	private final ConcurrentMap<Class<? extends Model>, ModelFields> mFields = new ConcurrentHashMap<Class<? extends Model>, ModelFields>();
 	
-	private Map<Class<? extends Model>, List<String>> KNOWN_MODEL_FIELDS = new HashMap<Class<? extends Model>, List<String>>();
+	private final ConcurrentMap<Class<? extends Model>, List<TableDefinition>> mTableDefinitions = new ConcurrentHashMap<Class<? extends Model>, List<TableDefinition>>();
 	
-	private Map<Class<? extends Model>, List<Field>> KNOWN_FIELD_INSTANCES = new HashMap<Class<? extends Model>, List<Field>>();
+	private final ConcurrentMap<Class<? extends Model>, FieldPlan> mFieldPlans = new ConcurrentHashMap<Class<? extends Model>, FieldPlan>();
 	
-	private Map<String, Field> FIELD_SHORTCUTS = new HashMap<String, Field>();
+	private final ConcurrentMap<String, RowMapper<?>> mRowMappers = new ConcurrentHashMap<String, RowMapper<?>>();
+	
+	private final ConcurrentMap<Class<? extends Model>, ModelFactory<?>> mFactories = new ConcurrentHashMap<Class<? extends Model>, ModelFactory<?>>();
+	
+	private final ConcurrentMap<Class<? extends Model>, Object> mMetadata = new ConcurrentHashMap<Class<? extends Model>, Object>();
 	
 	public <T extends Model> boolean knowsModel(Class<T> clazz) {
-		return KNOWN_MODELS.contains(clazz);
+		return mModels.containsKey(clazz);
 	}
 	
 	public <T extends Model> boolean knowsFields(Class<T> clazz) {
-		if(knowsModel(clazz)) {
-			return !KNOWN_MODEL_FIELDS.get(clazz).isEmpty();
+		return mFields.containsKey(clazz);
+	}
+	
+	public <T extends Model> void addModel(Class<T> clazz) {
+		mModels.put(clazz, Boolean.TRUE);
+	}
+	
+	public <T extends Model> List<TableDefinition> getTableDefinitions(Class<T> clazz) {
+		return mTableDefinitions.get(clazz);
+	}
+	
+	public <T extends Model> void setTableDefinitions(Class<T> clazz, List<TableDefinition> definitions) {
+		mTableDefinitions.put(clazz, Collections.unmodifiableList(definitions));
+	}
+	
+	/**
+	 * Publishes the database fields declared by clazz. 
+	 * 
+	 * @param clazz		Model class.
+	 * @param fields	Fields declared by clazz.
+	 * @return			The fields, that are cached for clazz. If 
+	 * 					another thread was first, these are its 
+	 * 					fields.
+	 */
+	public <T extends Model> List<ModelField> setModelFields(Class<T> clazz, List<ModelField> fields) {
+		ModelFields entry = new ModelFields(fields);
+		ModelFields published = mFields.putIfAbsent(clazz, entry);
+		
+		if(published != null) {
+			return published.mFields;
 		}
 		
-		return false;
+		return entry.mFields;
 	}
 	
-	public <T extends Model> void addModel(Class<T> clazz) {
-		if(knowsModel(clazz)) {
-			return;
+	public <T extends Model> List<ModelField> fieldsForModel(Class<T> clazz) {
+		ModelFields entry = mFields.get(clazz);
+		
+		if(entry != null) {
+			return entry.mFields;
 		}
 		
-		KNOWN_MODELS.add(clazz);
-		KNOWN_MODEL_FIELDS.put(clazz, new ArrayList<String>());
-		KNOWN_MODEL_FIELDS.put(clazz, new ArrayList<String>());
+		return Collections.emptyList();
 	}
 	
-	public <T extends Model> List<TableDefinition> getTableDefinitions(Class<T> clazz) {
-		if(knowsModel(clazz)) {
-			return TABLE_DEFINITIONS.get(clazz);
+	public <T extends Model> boolean modelHasField(Class<T> clazz, String field) {
+		return getField(clazz, field) != null;
+	}
+	
+	/**
+	 * @param clazz		Model class.
+	 * @param fieldName	Name of a field declared by clazz.
+	 * @return			The field or null, if clazz doesn't 
+	 * 					declare it or its fields are not 
+	 * 					known yet.
+	 */
+	public <T extends Model> ModelField getField(Class<T> clazz, String fieldName) {
+		ModelFields entry = mFields.get(clazz);
+		
+		if(entry != null) {
+			return entry.mByName.get(fieldName);
 		}
 		
 		return null;
 	}
 	
-	public <T extends Model> void setTableDefinitions(Class<T> clazz, List<TableDefinition> definitions) {
-		TABLE_DEFINITIONS.put(clazz, definitions);
+	/**
+	 * Returns the {@link FieldPlan} of clazz. The plan is 
+	 * created on first use. 
+	 * 
+	 * @param clazz		Model class.
+	 * @param instance	Instance of clazz.
+	 * @param adapter	Adapter the model belongs to.
+	 * @return			The plan.
+	 */
+	public FieldPlan getFieldPlan(Class<? extends Model> clazz, 
+			Model instance, 
+			DatabaseAdapter adapter) {
+		
+		FieldPlan plan = mFieldPlans.get(clazz);
+		
+		if(plan == null) {
+			plan = FieldPlan.create(clazz, instance, adapter);
+			
+			FieldPlan published = mFieldPlans.putIfAbsent(clazz, plan);
+			
+			if(published != null) {
+				plan = published;
+			}
+		}
+		
+		return plan;
 	}
 	
-	public <T extends Model> void setModelFields(Class<T> clazz, List<Field> fields) {
-		if(knowsModel(clazz)) {		
-			for(Field field : fields) {
-				String fieldName = field.getName();
-				
-				KNOWN_MODEL_FIELDS.get(clazz).add(fieldName);
-				FIELD_SHORTCUTS.put(clazz.toString() + fieldName, field);
-			}
+	/**
+	 * Returns the {@link RowMapper} for clazz and the columns
+	 * of the {@link Cursor}. The mapper is created on first use. 
+	 * 
+	 * @param clazz		Model class.
+	 * @param c			Cursor to read from.
+	 * @param instance	Instance of clazz.
+	 * @param adapter	Adapter the model belongs to.
+	 * @return			The mapper.
+	 */
+	@SuppressWarnings("unchecked")
+	public <T extends Model> RowMapper<T> getRowMapper(Class<T> clazz, 
+			Cursor c, 
+			T instance, 
+			DatabaseAdapter adapter) {
+		
+		String key = RowMapper.key(clazz, c);
+		RowMapper<T> mapper = (RowMapper<T>) mRowMappers.get(key);
+		
+		if(mapper == null) {
+			mapper = RowMapper.create(clazz, c, instance, adapter);
+			
+			RowMapper<T> published = (RowMapper<T>) mRowMappers.putIfAbsent(key, mapper);
 			
-			KNOWN_FIELD_INSTANCES.put(clazz, fields);
+			if(published != null) {
+				mapper = published;
+			}
 		}
+		
+		return mapper;
 	}
 	
-	public <T extends Model> List<Field> fieldsForModel(Class<T> clazz) {
-		if(knowsModel(clazz)) {
-			return KNOWN_FIELD_INSTANCES.get(clazz);
+	/**
+	 * Returns the {@link ModelFactory} for clazz. The factory
+	 * is created on first use. 
+	 * 
+	 * @param clazz	Model class.
+	 * @return		The factory.
+	 * @throws NoSuchMethodException	If clazz has no public 
+	 * 									no-argument constructor.
+	 */
+	@SuppressWarnings("unchecked")
+	public <T extends Model> ModelFactory<T> getFactory(Class<T> clazz) throws NoSuchMethodException {
+		ModelFactory<T> factory = (ModelFactory<T>) mFactories.get(clazz);
+		
+		if(factory == null) {
+			factory = new ModelFactory<T>(clazz, getMetadata(clazz));
+			
+			ModelFactory<T> published = (ModelFactory<T>) mFactories.putIfAbsent(clazz, factory);
+			
+			if(published != null) {
+				factory = published;
+			}
 		}
 		
-		return new ArrayList<Field>();
+		return factory;
 	}
 	
-	public <T extends Model> boolean modelHasField(Class<T> clazz, String field) {
-		if(knowsFields(clazz)) {
-			return KNOWN_MODEL_FIELDS.get(clazz).contains(field);
+	/**
+	 * Looks up the {@link ModelMetadata} generated for clazz.
+	 * The result is cached, including the absence of metadata.
+	 * 
+	 * @param clazz	Model class.
+	 * @return		The metadata or null, if none has been generated. 
+	 */
+	@SuppressWarnings("unchecked")
+	public <T extends Model> ModelMetadata<T> getMetadata(Class<T> clazz) {
+		Object metadata = mMetadata.get(clazz);
+		
+		if(metadata == null) {
+			metadata = loadMetadata(clazz);
+			
+			Object published = mMetadata.putIfAbsent(clazz, metadata);
+			
+			if(published != null) {
+				metadata = published;
+			}
+		}
+		
+		if(metadata == NO_METADATA) {
+			return null;
 		}
 		
-		return false;
+		return (ModelMetadata<T>) metadata;
 	}
 	
-	public <T extends Model> Field getField(Class<T> clazz, String fieldName) {
-		if(knowsFields(clazz)) {
-			return FIELD_SHORTCUTS.get(clazz.toString() + fieldName);
+	private Object loadMetadata(Class<? extends Model> clazz) {
+		try {
+			Class<?> generated = Class.forName(clazz.getName() + ModelMetadata.SUFFIX, 
+					true, 
+					clazz.getClassLoader());
+			
+			return generated.newInstance();
+		} catch(ClassNotFoundException e) {
+			// not generated, reflection is used instead
+			return NO_METADATA;
+		} catch(Exception e) {
+			throw new IllegalStateException("can not load metadata of " + clazz.getName(), e);
 		}
-		
-		return null;
 	}
 	
 	public void reset() {
-		KNOWN_MODELS.clear();
-		KNOWN_FIELD_INSTANCES.clear();
-		KNOWN_MODEL_FIELDS.clear();
-		TABLE_DEFINITIONS.clear();
-		FIELD_SHORTCUTS.clear();
+		mModels.clear();
+		mFields.clear();
+		mTableDefinitions.clear();
+		mFieldPlans.clear();
+		mRowMappers.clear();
+		mFactories.clear();
+		mMetadata.clear();
 	}
 }
@@ -0,0 +1,90 @@
+/**
+ * Copyright (C) 2012 Clyde Stubbs,   2010 Philipp Giese
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.orm.androrm;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+
+/**
+ * Creates instances of a model class. The constructor is looked up once, so creating an
+ * instance for every row of a query does not search the constructors of the class again.
+ * <p/>
+ * Factories are cached by the {@link ModelCache}.
+ *
+ * @param <T> Model class.
+ */
+public class ModelFactory<T extends Model> {
+
+	private final Constructor<T> mConstructor;
+	private final ModelMetadata<T> mMetadata;
+	private T mPrototype;
+
+	/**
+	 * @param clazz Model class with a public no-argument constructor.
+	 * @throws NoSuchMethodException If clazz has no such constructor.
+	 */
+	public ModelFactory(Class<T> clazz) throws NoSuchMethodException {
+		this(clazz, null);
+	}
+
+	/**
+	 * @param clazz    Model class with a public no-argument constructor.
+	 * @param metadata Generated metadata of clazz, that creates the instances, or null.
+	 * @throws NoSuchMethodException If there is no metadata and clazz has no such constructor.
+	 */
+	public ModelFactory(Class<T> clazz, ModelMetadata<T> metadata) throws NoSuchMethodException {
+		mMetadata = metadata;
+		mConstructor = metadata == null ? clazz.getConstructor() : null;
+	}
+
+	/**
+	 * @param adapter Adapter the instance belongs to.
+	 * @return A new instance.
+	 */
+	public T newInstance(DatabaseAdapter adapter) throws InstantiationException,
+			IllegalAccessException,
+			InvocationTargetException {
+
+		T instance = mMetadata == null ? mConstructor.newInstance() : mMetadata.newInstance();
+
+		if(instance == null)
+			throw new InstantiationException("can not create an instance of an abstract model");
+
+		instance.setAdapter(adapter);
+
+		return instance;
+	}
+
+	/**
+	 * Returns an instance, that is only used to inspect the fields of the model class, e.g. to
+	 * find out the target of a relation. It is shared and must not be changed or saved.
+	 *
+	 * @param adapter Adapter the instance belongs to.
+	 * @return The shared instance.
+	 */
+	public synchronized T getPrototype(DatabaseAdapter adapter) throws InstantiationException,
+			IllegalAccessException,
+			InvocationTargetException {
+
+		if(mPrototype == null)
+			mPrototype = newInstance(adapter);
+
+		return mPrototype;
+	}
+}
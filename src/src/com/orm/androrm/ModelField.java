@@ -0,0 +1,91 @@
+/**
+ * Copyright (C) 2012 Clyde Stubbs,   2010 Philipp Giese
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.orm.androrm;
+
+import java.lang.reflect.Field;
+
+/**
+ * Database field declared by a model class, i.e. a {@link DataField} or a relation. Gives access
+ * to the field object of an instance either by reflection or through the
+ * {@link ModelMetadata} generated for the class.
+ */
+public abstract class ModelField {
+
+	private final String mName;
+
+	protected ModelField(String name) {
+		mName = name;
+	}
+
+	public String getName() {
+		return mName;
+	}
+
+	/**
+	 * @param instance Instance of the class, that declares this field.
+	 * @return The field object of instance.
+	 * @throws IllegalAccessException
+	 */
+	public abstract Object get(Object instance) throws IllegalAccessException;
+
+	@Override
+	public String toString() {
+		return mName;
+	}
+
+	/**
+	 * Accesses the field by reflection. The field has to be accessible already.
+	 */
+	static class Reflected extends ModelField {
+
+		private final Field mField;
+
+		Reflected(Field field) {
+			super(field.getName());
+			mField = field;
+		}
+
+		@Override
+		public Object get(Object instance) throws IllegalAccessException {
+			return mField.get(instance);
+		}
+	}
+
+	/**
+	 * Accesses the field through the accessor generated for the model class.
+	 */
+	static class Generated<T extends Model> extends ModelField {
+
+		private final ModelMetadata<T> mMetadata;
+		private final Class<T> mClass;
+		private final int mIndex;
+
+		Generated(ModelMetadata<T> metadata, int index) {
+			super(metadata.getFieldNames()[index]);
+			mMetadata = metadata;
+			mClass = metadata.getModelClass();
+			mIndex = index;
+		}
+
+		@Override
+		public Object get(Object instance) {
+			return mMetadata.getField(mClass.cast(instance), mIndex);
+		}
+	}
+}
@@ -0,0 +1,55 @@
+/**
+ * Copyright (C) 2012 Clyde Stubbs,   2010 Philipp Giese
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.orm.androrm;
+
+/**
+ * Metadata of a model class, that is generated at compile time by the annotation processor in
+ * com.orm.androrm.processor. If a class named like the model class with the suffix
+ * {@link #SUFFIX} exists, the {@link DatabaseAdapter} uses it instead of reflecting over the
+ * declared fields of the model class and its constructor.
+ * <p/>
+ * Metadata only describes the fields declared by the class itself. Fields of superclasses are
+ * described by the metadata of the superclass.
+ *
+ * @param <T> Model class.
+ */
+public interface ModelMetadata<T extends Model> {
+
+	public static final String SUFFIX = "_Metadata";
+
+	public Class<T> getModelClass();
+
+	/**
+	 * @return Names of all database fields declared by the model class in the order they have
+	 *         been declared.
+	 */
+	public String[] getFieldNames();
+
+	/**
+	 * @param instance Instance of the model class.
+	 * @param index    Index of the field in {@link #getFieldNames()}.
+	 * @return The field object of instance.
+	 */
+	public Object getField(T instance, int index);
+
+	/**
+	 * @return A new instance of the model class or null, if it is abstract.
+	 */
+	public T newInstance();
+}
@@ -22,6 +22,7 @@
  */
 package com.orm.androrm;
 
+import java.util.List;
 import java.util.Set;
 
 /**
@@ -37,14 +38,17 @@ public class NotStatement extends Statement {
 	}
 	
 	@Override
-	public String toString() {
-		String or = super.toString();
-		
-		return "not " + expr.toString();
+	public String toSql(List<Object> args) {
+		return "not " + expr.toSql(args);
 	}
 
 	@Override
 	public Set<String> getKeys() {
 		return expr.getKeys();
 	}
+	
+	@Override
+	public Statement withKey(String key) {
+		return new NotStatement(expr.withKey(key));
+	}
 }
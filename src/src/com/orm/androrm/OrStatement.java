@@ -22,6 +22,8 @@
  */
 package com.orm.androrm;
 
+import java.util.List;
+
 /**
  * @author Philipp Giese
  */
@@ -34,8 +36,8 @@ public class OrStatement extends ComposedStatement {
 	}
 	
 	@Override
-	public String toString() {
-		String or = super.toString();
+	public String toSql(List<Object> args) {
+		String or = super.toSql(args);
 		
 		return "(" + or + ")";
 	}
@@ -23,11 +23,13 @@
 package com.orm.androrm;
 
 import android.util.Log;
-import java.lang.reflect.Field;
+import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * @author Philipp GIese
@@ -36,415 +38,403 @@ import java.util.Map;
 public class QueryBuilder {
 	
 	private static final String TAG = "ANDRORM:QUERY:BUILDER";
+	/**
+	 * Maximum number of cached templates. Filters on IN statements 
+	 * create a new template for each number of values, so the 
+	 * cache has to be bounded. Once it is full, the least recently
+	 * used template is dropped. 
+	 */
+	private static final int MAX_TEMPLATES = 256;
+	
 	protected DatabaseAdapter mAdapter;
+	/**
+	 * SQL of the WHERE clauses created by {@link #buildWhere(Class, List)}
+	 * by the shape of their rules in least recently used order. See 
+	 * {@link #getTemplateKey(Class, List, List)}. Filters are built on 
+	 * any thread, so all access is synchronized on the map. 
+	 */
+	private final LinkedHashMap<String, Template> mTemplates = new LinkedHashMap<String, Template>(16, 0.75f, true) {
+		
+		private static final long serialVersionUID = -2961707213466331513L;
+		
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, Template> eldest) {
+			return size() > MAX_TEMPLATES;
+		}
+	};
+	private final AtomicInteger mTemplateHits = new AtomicInteger();
+	private final AtomicInteger mTemplateMisses = new AtomicInteger();
+	
+	private static final class Template {
+		
+		private final String mSql;
+		private final Set<String> mKeys;
+		
+		private Template(String sql, Set<String> keys) {
+			mSql = sql;
+			mKeys = keys;
+		}
+	}
 
 	public QueryBuilder(DatabaseAdapter adapter) {
 		this.mAdapter = adapter;
 	}
 	
-	private final <T extends Model> SelectStatement buildJoin(
+	/**
+	 * Creates a single select on the table of the given class, that 
+	 * returns all rows matching the given rules. 
+	 * <br /><br />
+	 * Rules on plain columns and on foreign keys become predicates 
+	 * of the WHERE clause. Rules on relations become IN statements, 
+	 * whose subquery selects the ids of the matching rows. All 
+	 * predicates are combined by AND. 
+	 * <br /><br />
+	 * <b>Example:</b><br />
+	 * The rules <code>mName = 'foo'</code> and 
+	 * <code>mBranches__mName = 'bar'</code> on a Supplier 
+	 * result in
+	 * <pre>
+	 * SELECT * FROM `supplier` WHERE mName = 'foo' 
+	 *   AND mId IN (SELECT mSupplier FROM `branch` WHERE mName = 'bar')
+	 * </pre>
+	 * 
+	 * @param clazz	Class the rules are applied to.
+	 * @param rules	Rules of the {@link Filter}.
+	 * @return		Select on the table of the class.
+	 * 
+	 * @throws NoSuchFieldException If a key does not lead to a field.
+	 */
+	public final <T extends Model> SelectStatement buildQuery(
 			
-			Class<T> 		clazz,
-			List<String> 	fields, 
-			Rule 			filter, 
-			int 			depth
+			Class<T> 	clazz, 
+			List<Rule> 	rules
 			
 	) {
 		
-		T instance = mAdapter.getInstance(clazz);
+		SelectStatement select = new SelectStatement();
+		select.from(mAdapter.getTableName(clazz));
 		
-		if(instance != null) {
-			Object fieldInstance = getFieldInstance(clazz, instance, fields.get(0));
-			
-			if(fields.size() == 1) {
-				return resolveLastField(fieldInstance, clazz, filter);
-			} 
-			
-			if(mAdapter.isRelationalField(fieldInstance)) {
-				return resolveRelationField(fieldInstance, clazz, fields, filter, depth);
-			}
+		if(!rules.isEmpty()) {
+			select.where(buildWhere(clazz, rules));
 		}
 		
-		return null;
+		return select;
 	}
 	
-	public final <T extends Model> SelectStatement buildQuery(
+	/**
+	 * Creates the WHERE clause of {@link #buildQuery(Class, List)}.
+	 * <br /><br />
+	 * The SQL of the clause is cached by the class and the keys and
+	 * statements of the rules without their values. If the same 
+	 * rules are applied again with other values, the cached SQL is
+	 * used with the new values as {@link TemplateStatement} and the 
+	 * fields of the models are not resolved again. 
+	 * 
+	 * @param clazz	Class the rules are applied to.
+	 * @param rules	Rules of the {@link Filter}.
+	 * @return		Conjunction of all rules.
+	 * 
+	 * @throws NoSuchFieldException If a key does not lead to a field.
+	 */
+	public final <T extends Model> Where buildWhere(
 			
 			Class<T> 	clazz, 
 			List<Rule> 	rules
 			
 	) {
 		
-		return buildQuery(clazz, rules, 0);
-	}
-	
-	private final <T extends Model> SelectStatement buildQuery(
-			
-			Class<T> 	clazz, 
-			List<Rule> 	rules,
-			int 		depth
-			
-	)  {
-		
-		String tableName = mAdapter.getTableName(clazz);
-		
-		JoinStatement selfJoin = new JoinStatement();
-		selfJoin.left(tableName, "self" + depth);
+		Where where = new Where();
 		
-		SelectStatement subSelect = new SelectStatement();
-		Rule rule = rules.get(0);
+		if(rules.isEmpty()) {
+			return where;
+		}
 		
-		List<String> fields = Arrays.asList(rule.getKey().split("__"));
+		List<Object> values = new ArrayList<Object>();
+		String key = getTemplateKey(clazz, rules, values);
+		Template template;
 		
-		if(fields.size() == 1) {
-			String fieldName = fields.get(0);
-			
-			T instance = mAdapter.getInstance(clazz);
-			
-			if(instance != null) {
-				Object o = getFieldInstance(clazz, instance, fieldName);
-				
-				if(mAdapter.isRelationalField(o)) {
-					// gather ids for fields
-					SelectStatement s = buildJoin(clazz, fields, rule, depth);
-					
-					JoinStatement join = new JoinStatement();
-					join.left(tableName, "a")
-						.right(s, "b")
-						.on(Model.PK, tableName);
-					
-					subSelect.from(join)
-							 .select("a.*");
-				} else {
-					Where where = new Where();
-					where.setStatement(rule.getStatement());
-					
-					subSelect.from(tableName)
-						  	 .where(where);
-				}
-			}
-		} else {
-			int left = depth + 1;
-			int right = depth + 2;
-			
-			JoinStatement join = new JoinStatement();
-			join.left(tableName, "outer" + left)
-				.right(buildJoin(clazz, 
-						fields, 
-						rule, 
-						depth), "outer" + right)
-				.on(Model.PK, tableName);
-			
-			subSelect.from(join)
-				  	 .select("outer" + left + ".*");
+		synchronized(mTemplates) {
+			template = mTemplates.get(key);
 		}
 		
-		if(rules.size() == 1) {
-			return subSelect;
+		if(template != null) {
+			mTemplateHits.incrementAndGet();
+			where.setStatement(new TemplateStatement(template.mSql, template.mKeys, values));
+			
+			return where;
 		}
 		
-		selfJoin.right(subSelect, "self" + (depth + 1))
-				.on(Model.PK, Model.PK);
+		mTemplateMisses.incrementAndGet();
+		where = compileWhere(clazz, rules);
 		
-		JoinStatement outerSelfJoin = new JoinStatement();
-		outerSelfJoin.left(subSelect, "outerSelf" + depth)
-					 .right(buildQuery(clazz, 
-							 rules.subList(1, 
-									 rules.size()), 
-							 (depth + 2)), 
-							 "outerSelf" + (depth + 1))
-					 .on(Model.PK, Model.PK);
+		List<Object> args = new ArrayList<Object>();
+		String sql = where.getStatement().toSql(args);
 		
-		SelectStatement select = new SelectStatement();
-		select.from(outerSelfJoin)
-			  .select("outerSelf" + depth + ".*");
+		/*
+		 * The template relies on the values of the rules appearing
+		 * in the SQL in the same order as the rules. 
+		 */
+		if(args.equals(values)) {
+			synchronized(mTemplates) {
+				mTemplates.put(key, new Template(sql, where.getStatement().getKeys()));
+			}
+		}
 		
-		return select;
+		return where;
+	}
+	
+	/**
+	 * Number of calls to {@link #buildWhere(Class, List)}, that 
+	 * used a cached template. 
+	 */
+	public int getTemplateHits() {
+		return mTemplateHits.get();
+	}
+	
+	/**
+	 * Number of calls to {@link #buildWhere(Class, List)}, that 
+	 * had to create the SQL of the rules. 
+	 */
+	public int getTemplateMisses() {
+		return mTemplateMisses.get();
+	}
+	
+	/**
+	 * Removes all cached templates and resets the counters. 
+	 */
+	public void clearTemplates() {
+		synchronized(mTemplates) {
+			mTemplates.clear();
+		}
 		
+		mTemplateHits.set(0);
+		mTemplateMisses.set(0);
 	}
 	
-	private final <T extends Model> Object getFieldInstance(
+	/**
+	 * Creates the key of the template for the given rules. The key 
+	 * consists of the name of the class and of the key and SQL 
+	 * of each rule, in which all values are replaced by 
+	 * placeholders. The values are added to the given list in the
+	 * order of the rules. 
+	 */
+	private final String getTemplateKey(
+			
+			Class<?> 		clazz, 
+			List<Rule> 		rules, 
+			List<Object> 	values
 			
-			Class<T> 	clazz, 
-			T 			instance, 
-			String 		fieldName
-	
-	)  {
-		Field field = instance.getField(clazz, instance, fieldName);
-		Object fieldInstance = null;
+	) {
 		
-		if(field != null) {
-			try {
-				fieldInstance = field.get(instance);
-			} catch(IllegalAccessException e) {
-				Log.e(TAG, "exception thrown while trying to create representation of " 
-						+ clazz.getSimpleName() 
-						+ " and fetching field object for field " 
-						+ fieldName, e);
-			}
+		StringBuilder key = new StringBuilder(clazz.getName());
+		
+		for(Rule rule : rules) {
+			key.append('|')
+			   .append(rule.getKey())
+			   .append('|')
+			   .append(rule.getStatement().toSql(values));
 		}
 		
-		return fieldInstance;
+		return key.toString();
 	}
 	
-	@SuppressWarnings("unchecked")
-	private final <T extends Model> SelectStatement getRelationSelection(
+	private final <T extends Model> Where compileWhere(
 			
-			Relation<?> r, 
 			Class<T> 	clazz, 
-			Rule 		rule
+			List<Rule> 	rules
 			
 	) {
-		Class<? extends Model> target = r.getTarget();
-		Statement stmt = rule.getStatement();
-		Where where = new Where();
-		SelectStatement select = new SelectStatement();
 		
-		if(r instanceof ManyToManyField) {
-			ManyToManyField<T, ?> m = (ManyToManyField<T, ?>) r;
-			
-			stmt.setKey(mAdapter.getTableName(target));
-			
-			where.setStatement(stmt);
-			
-			select.from(m.getRelationTableName())
-			 	  .select(mAdapter.getTableName(clazz));
-		} 
+		Where where = new Where();
 		
-		if(r instanceof OneToManyField) {
-			String backLinkFieldName = mAdapter.getBackLinkFieldName(target, clazz);
-			
-			stmt.setKey(backLinkFieldName);
+		for(Rule rule : rules) {
+			List<String> fields = Arrays.asList(rule.getKey().split("__"));
 			
-			where.setStatement(stmt);
-			
-			select.from(mAdapter.getTableName(target))
-			 	  .select(backLinkFieldName + " AS " + mAdapter.getTableName(clazz));
-		}	
-		
-		select.where(where)
-			  .distinct();
+			where.and(buildPredicate(clazz, fields, rule));
+		}
 		
-		return select;
+		return where;
 	}
 	
-	private final <T extends Model> SelectStatement resolveLastField(
+	/**
+	 * Resolves the field chain of a rule into a predicate on the
+	 * table of the given class. 
+	 */
+	private final <T extends Model> Statement buildPredicate(
 			
-			Object 		field, 
-			Class<T> 	clazz, 
-			Rule 		rule
+			Class<T> 		clazz,
+			List<String> 	fields,
+			Rule 			rule
 			
 	) {
 		
-		SelectStatement select = new SelectStatement();
-		
-		if(mAdapter.isRelationalField(field) 
-				&& !(field instanceof ForeignKeyField)) {
-			
-			Relation<?> r = (Relation<?>) field;
-			
-			return getRelationSelection(r, clazz, rule);
-		} 
+		String fieldName = fields.get(0);
+		T instance = mAdapter.getPrototype(clazz);
+		Object field = null;
 		
-		String tableName = mAdapter.getTableName(clazz);
+		if(instance != null) {
+			field = getFieldInstance(clazz, instance, fieldName);
+		}
 		
-		Where where = new Where();
-		where.setStatement(rule.getStatement());
+		if(field == null) {
+			throw new NoSuchFieldException("No field named " 
+					+ fieldName 
+					+ " in class " 
+					+ clazz.getSimpleName());
+		}
 		
-		select.from(tableName)
-			  .distinct()
-			  .select(Model.PK + " AS " + tableName)
-			  .where(where);
+		boolean relation = mAdapter.isRelationalField(field);
 		
-		return select;
-	}
-	
-	private final <T extends Model> SelectStatement resolveRelationField(
-			
-			Object 			field, 
-			Class<T> 		clazz, 
-			List<String> 	fields, 
-			Rule 			rule,
-			int 			depth
+		if(fields.size() == 1) {
+			if(relation && !(field instanceof ForeignKeyField)) {
+				Relation<?> r = (Relation<?>) field;
+				// the rule is left unchanged, as filters can be applied again
+				Statement stmt = rule.getStatement().withKey(getRelationKey(r, clazz));
+				
+				return getRelationPredicate(r, clazz, stmt);
+			}
 			
-	)  {
+			/*
+			 * Plain columns and foreign keys can be compared 
+			 * directly in the table of the class.
+			 */
+			return rule.getStatement();
+		}
 		
-		Relation<?> r = (Relation<?>) field;
-		SelectStatement select = new SelectStatement();
+		if(!relation) {
+			throw new NoSuchFieldException("Field " 
+					+ fieldName 
+					+ " in class " 
+					+ clazz.getSimpleName() 
+					+ " is no relation and cannot be followed to " 
+					+ fields.get(1));
+		}
 		
+		Relation<?> r = (Relation<?>) field;
 		Class<? extends Model> target = r.getTarget();
+		Statement next = buildPredicate(target, fields.subList(1, fields.size()), rule);
 		
-		Map<String, String> joinParams = unwrapRelation(r, fields.get(0), clazz);
-		
-		String leftTable = joinParams.get("leftTable");
-		String selectField = joinParams.get("selectField");
-		String selectAs = joinParams.get("selectAs");
-		String onLeft = joinParams.get("onLeft");
-		String onRight = mAdapter.getTableName(target);
-		
-		/*
-		 * After the steps above the left side of the join is always known. 
-		 * What is currently unknown is, if there are any further sub-joins
-		 * needed in order to accomplish the query. Therefore the right side
-		 * of the join is provided with the result of this function. 
-		 */
-		JoinStatement join = new JoinStatement();
-		join.left(leftTable, "table" + depth)
-			.right(buildJoin(target, 
-					fields.subList(1, fields.size()), 
-					rule, 
-					depth + 2), 
-					"table" + (depth + 1))
-			.on(onLeft, onRight);
+		if(r instanceof ForeignKeyField) {
+			return new InSelectStatement(fieldName, selectIds(target, next));
+		}
 		
-		/*
-		 * The select will fetch the correct field from the previous join
-		 * that will be needed in the next step. 
-		 */
-		select.from(join)
-			  .distinct()
-		 	  .select("table" 
-		 			  + depth 
-		 			  + "."
-		 			  + selectField
-		 			  + " AS "
-		 			  + selectAs);
+		if(r instanceof ManyToManyField) {
+			Statement targets = new InSelectStatement(mAdapter.getTableName(target), 
+					selectIds(target, next));
+			
+			return getRelationPredicate(r, clazz, targets);
+		}
 		
-		return select;
+		return getRelationPredicate(r, clazz, next);
 	}
 	
-	private final <T extends Model> Map<String, String> unwrapForeignKeyRelation(
+	/**
+	 * Returns the column a rule ending in the given relation is 
+	 * compared with. The values of such a rule are models of the 
+	 * target class, so for {@link ManyToManyField ManyToManyFields}
+	 * this is the column of the target in the relation table and for
+	 * {@link OneToManyField OneToManyFields} the id of the target. 
+	 */
+	private final <T extends Model> String getRelationKey(
 			
-			String 		fieldName,
-			Class<T> 	clazz,
-			Relation<?> r
+			Relation<?> r, 
+			Class<T> 	clazz
 			
 	) {
 		
-		Map<String, String> joinParams = new HashMap<String, String>();
-		
-		/*
-		 * As ForeignKeyFields are real fields in the
-		 * database our left table for the join
-		 * is the table corresponding to the class,
-		 * we are currently examining.
-		 */
-		String leftTable = mAdapter.getTableName(clazz);
-		joinParams.put("leftTable", leftTable);
-		/*
-		 * As we do not operate on a relation table
-		 * we need to select the id field of our 
-		 * current table. 
-		 */
-		joinParams.put("selectField", Model.PK);
-		/*
-		 * In order to work along with ManyToManyFields
-		 * we select the Id field as the table name
-		 * corresponding to our class. 
-		 */
-		joinParams.put("selectAs", leftTable);
-		
-		/*
-		 * Field of the left table, that will be considered
-		 * during the join.
-		 */
-		joinParams.put("onLeft", fieldName);
+		if(r instanceof ManyToManyField) {
+			return mAdapter.getTableName(r.getTarget());
+		}
 		
-		return joinParams;
+		return Model.PK;
 	}
 	
+	/**
+	 * Creates an IN statement on the id of the given class, that 
+	 * selects the ids of all rows, whose relation matches the given 
+	 * statement. For {@link ManyToManyField ManyToManyFields} the 
+	 * statement is applied to the relation table, for 
+	 * {@link OneToManyField OneToManyFields} to the target table.
+	 */
 	@SuppressWarnings("unchecked")
-	private final <T extends Model> Map<String, String> unwrapManyToManyRelation(
+	private final <T extends Model> Statement getRelationPredicate(
 			
+			Relation<?> r, 
 			Class<T> 	clazz, 
-			Relation<?> r
+			Statement 	stmt
 			
 	) {
 		
-		Map<String, String> joinParams = new HashMap<String, String>();
-		ManyToManyField<T, ?> m = (ManyToManyField<T, ?>) r;
+		Class<? extends Model> target = r.getTarget();
+		SelectStatement select = new SelectStatement();
+		Where where = new Where();
 		
-		/*
-		 * As ManyToManyFields are represented in a separate
-		 * relation table this table has to be considered for
-		 * the join.
-		 */
-		joinParams.put("leftTable", m.getRelationTableName());
-		/*
-		 * By convention the fields in a relation table are named
-		 * after the classes they represent. Thus we select the field
-		 * with the name of the class we are currently examining.
-		 */
-		String selectField = mAdapter.getTableName(clazz);
-		joinParams.put("selectField", selectField);
-		/*
-		 * When dealing with foreign keys the selection field has
-		 * to be renamed to the field name in the representing class.
-		 * ManyToManyFields do not need this.
-		 */
-		joinParams.put("selectAs", selectField);
-		/*
-		 * Field of the left table that will be considered 
-		 * during the join. 
-		 */
-		joinParams.put("onLeft", mAdapter.getTableName(m.getTarget()));
+		if(r instanceof ManyToManyField) {
+			ManyToManyField<T, ?> m = (ManyToManyField<T, ?>) r;
+			
+			select.from(m.getRelationTableName())
+				  .select(mAdapter.getTableName(clazz));
+		} else {
+			select.from(mAdapter.getTableName(target))
+				  .select(mAdapter.getBackLinkFieldName(target, clazz));
+		}
+		
+		where.setStatement(stmt);
+		select.where(where);
 		
-		return joinParams;
+		return new InSelectStatement(Model.PK, select);
 	}
 	
-	private final <T extends Model> Map<String, String> unwrapOneToManyField(
+	/**
+	 * Creates a select of the ids of all rows of the given class,
+	 * that match the given statement. If the statement already is
+	 * an IN statement on the id, its subquery is used directly. 
+	 */
+	private final SelectStatement selectIds(
 			
-			String 		fieldName,
-			Class<T> 	clazz,
-			Relation<?> r
+			Class<? extends Model> 	clazz, 
+			Statement 				stmt
 			
 	) {
 		
-		Class<? extends Model> target = r.getTarget();
-		Map<String, String> joinParams = new HashMap<String, String>();
-		
-		/*
-		 * One to Many fields have no field representation in their origin 
-		 * class. Therefore we must determine the target class for the join.
-		 */
-		joinParams.put("leftTable", mAdapter.getTableName(target));
-		
-		/*
-		 * On the target class we select the field pointing back to 
-		 * the origin class
-		 */
-		joinParams.put("selectField", mAdapter.getBackLinkFieldName(target, clazz));
+		if(stmt instanceof InSelectStatement 
+				&& Model.PK.equals(stmt.mKey)) {
+			
+			return ((InSelectStatement) stmt).getSelect();
+		}
 		
-		/*
-		 * This field has to be selected under the alias of the origin class.
-		 */
-		joinParams.put("selectAs", mAdapter.getTableName(clazz));
+		Where where = new Where();
+		where.setStatement(stmt);
 		
-		/*
-		 * We have to join over the primary key of the target class,
-		 * as this is our indirect reference
-		 */
-		joinParams.put("onLeft", Model.PK);
+		SelectStatement select = new SelectStatement();
+		select.from(mAdapter.getTableName(clazz))
+			  .select(Model.PK)
+			  .where(where);
 		
-		return joinParams;
+		return select;
 	}
 	
-	private final <T extends Model> Map<String, String> unwrapRelation(
-			
-			Relation<?> r, 
-			String 		fieldName,
-			Class<T> 	clazz
+	private final <T extends Model> Object getFieldInstance(
 			
-	) {
+			Class<T> 	clazz, 
+			T 			instance, 
+			String 		fieldName
+	
+	)  {
+		ModelField field = instance.getField(clazz, instance, fieldName);
+		Object fieldInstance = null;
 		
-		if(r instanceof ManyToManyField) {
-			return unwrapManyToManyRelation(clazz, r);
-		} else if(r instanceof ForeignKeyField) {
-			return unwrapForeignKeyRelation(fieldName, clazz, r);
-		} else if(r instanceof OneToManyField) {
-			return unwrapOneToManyField(fieldName, clazz, r);
+		if(field != null) {
+			try {
+				fieldInstance = field.get(instance);
+			} catch(IllegalAccessException e) {
+				Log.e(TAG, "exception thrown while trying to create representation of " 
+						+ clazz.getSimpleName() 
+						+ " and fetching field object for field " 
+						+ fieldName, e);
+			}
 		}
 		
-		return null;
+		return fieldInstance;
 	}
 }
@@ -0,0 +1,124 @@
+/**
+ * Copyright (C) 2012 Clyde Stubbs,   2010 Philipp Giese
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.orm.androrm;
+
+import java.io.Closeable;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import android.database.Cursor;
+
+/**
+ * Iterates the result of a query row by row. Each call to {@link #next()} creates one model
+ * from the current row of the cursor, so only the models, that the caller keeps, stay in
+ * memory.
+ * <p/>
+ * The iterator holds the cursor and the adapter's read lock until it is closed. It is closed
+ * automatically once the last row has been read. If the iteration is stopped early,
+ * {@link #close()} has to be called, preferably in a finally block. As the lock belongs to the
+ * thread, that started the iteration, the iterator can only be used and closed on that thread.
+ *
+ * @param <T> Model class.
+ */
+public class QueryIterator<T extends Model> implements Iterator<T>, Closeable {
+
+	private final Class<T> mClass;
+	private final DatabaseAdapter mAdapter;
+	private final Thread mThread;
+	private Cursor mCursor;
+	private RowMapper<T> mMapper;
+	private boolean mHasRow;
+
+	/**
+	 * @param clazz   Model class.
+	 * @param c       Cursor of the query or null for an empty result.
+	 * @param adapter Adapter, that has been opened for the cursor.
+	 */
+	QueryIterator(Class<T> clazz, Cursor c, DatabaseAdapter adapter) {
+		mClass = clazz;
+		mCursor = c;
+		mAdapter = adapter;
+		mThread = Thread.currentThread();
+	}
+
+	@Override
+	public boolean hasNext() {
+		if(mHasRow)
+			return true;
+
+		if(mCursor == null)
+			return false;
+
+		checkThread();
+		mHasRow = mCursor.moveToNext();
+
+		if(!mHasRow)
+			close();
+
+		return mHasRow;
+	}
+
+	@Override
+	public T next() {
+		if(!hasNext())
+			throw new NoSuchElementException();
+
+		mHasRow = false;
+
+		T object = mAdapter.getInstance(mClass);
+
+		if(mMapper == null)
+			mMapper = mAdapter.getModelCache().getRowMapper(mClass, mCursor, object, mAdapter);
+
+		return Model.createObject(mClass, mCursor, object, mMapper);
+	}
+
+	@Override
+	public void remove() {
+		throw new UnsupportedOperationException("rows can not be removed through a query iterator");
+	}
+
+	/**
+	 * Closes the cursor and releases the lock. Calling this more than once has no effect.
+	 */
+	@Override
+	public void close() {
+		if(mCursor == null)
+			return;
+
+		checkThread();
+
+		try {
+			mCursor.close();
+		} finally {
+			mCursor = null;
+			mHasRow = false;
+			mAdapter.close();
+		}
+	}
+
+	public boolean isClosed() {
+		return mCursor == null;
+	}
+
+	private void checkThread() {
+		if(Thread.currentThread() != mThread)
+			throw new IllegalStateException("a query iterator can only be used on the thread, that created it");
+	}
+}
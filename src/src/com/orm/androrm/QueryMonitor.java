@@ -0,0 +1,165 @@
+/**
+ * Copyright (C) 2012 Clyde Stubbs,   2010 Philipp Giese
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.orm.androrm;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import android.database.Cursor;
+import android.database.SQLException;
+import android.database.sqlite.SQLiteDatabase;
+import android.util.Log;
+
+/**
+ * Times the statements of a {@link DatabaseAdapter} and keeps the most recent ones, that took
+ * longer than a threshold, together with their query plan. While disabled, the monitor only costs
+ * a volatile read per statement.
+ */
+class QueryMonitor {
+
+	private static final String TAG = "ANDRORM:QUERY:MONITOR";
+
+	// threshold in nanoseconds, negative while disabled
+	private volatile long mThreshold = -1;
+
+	private SlowQuery[] mEntries = new SlowQuery[0];
+	private int mNext;
+	private int mSize;
+
+	/**
+	 * @param threshold  Minimum duration in milliseconds. Negative values disable the monitor.
+	 * @param maxEntries Number of slow statements, that are kept.
+	 */
+	synchronized void configure(long threshold, int maxEntries) {
+		if(threshold < 0 || maxEntries <= 0) {
+			mThreshold = -1;
+			return;
+		}
+
+		if(maxEntries != mEntries.length) {
+			List<SlowQuery> entries = getEntries();
+			int skip = Math.max(0, entries.size() - maxEntries);
+
+			mEntries = new SlowQuery[maxEntries];
+			mNext = 0;
+			mSize = 0;
+
+			for(int i = skip; i < entries.size(); i++)
+				add(entries.get(i));
+		}
+
+		mThreshold = threshold * 1000000;
+	}
+
+	boolean isEnabled() {
+		return mThreshold >= 0;
+	}
+
+	/**
+	 * Has to be called right before the statement is executed.
+	 *
+	 * @return Start of the statement or 0 if it is not measured.
+	 */
+	long start() {
+		if(mThreshold < 0)
+			return 0;
+
+		return System.nanoTime();
+	}
+
+	/**
+	 * Has to be called right after the statement has been executed. If it took longer than the
+	 * threshold, its query plan is read from db and it is added to the log.
+	 *
+	 * @param start Value returned by {@link #start()}.
+	 */
+	void finish(SQLiteDatabase db, long start, String sql, List<Object> args) {
+		if(start == 0)
+			return;
+
+		long duration = System.nanoTime() - start;
+		long threshold = mThreshold;
+
+		if(threshold < 0 || duration < threshold)
+			return;
+
+		String[] bindArgs = DatabaseAdapter.toArgs(args);
+		SlowQuery query = new SlowQuery(sql, bindArgs, duration, System.currentTimeMillis(),
+				explain(db, sql, bindArgs));
+
+		Log.w(TAG, query.toString());
+
+		synchronized(this) {
+			add(query);
+		}
+	}
+
+	private static List<String> explain(SQLiteDatabase db, String sql, String[] args) {
+		List<String> plan = new ArrayList<String>();
+		Cursor c = null;
+
+		try {
+			c = db.rawQuery("EXPLAIN QUERY PLAN " + sql, args);
+			int detail = c.getColumnIndex("detail");
+
+			if(detail == -1)
+				detail = c.getColumnCount() - 1;
+
+			while(c.moveToNext())
+				plan.add(c.getString(detail));
+		} catch(SQLException e) {
+			Log.e(TAG, "could not explain " + sql, e);
+		} finally {
+			if(c != null)
+				c.close();
+		}
+
+		return plan;
+	}
+
+	private void add(SlowQuery query) {
+		if(mEntries.length == 0)
+			return;
+
+		mEntries[mNext] = query;
+		mNext = (mNext + 1) % mEntries.length;
+
+		if(mSize < mEntries.length)
+			mSize++;
+	}
+
+	/**
+	 * @return The logged statements, oldest first.
+	 */
+	synchronized List<SlowQuery> getEntries() {
+		List<SlowQuery> entries = new ArrayList<SlowQuery>(mSize);
+		int first = (mNext - mSize + mEntries.length) % Math.max(1, mEntries.length);
+
+		for(int i = 0; i < mSize; i++)
+			entries.add(mEntries[(first + i) % mEntries.length]);
+
+		return entries;
+	}
+
+	synchronized void clear() {
+		mEntries = new SlowQuery[mEntries.length];
+		mNext = 0;
+		mSize = 0;
+	}
+}
@@ -23,9 +23,16 @@
 package com.orm.androrm;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+
+import com.orm.androrm.LockStats.Operation;
 
 import android.database.Cursor;
 
@@ -52,7 +59,14 @@ public class QuerySet<T extends Model> extends DbAdapterReference implements Ite
 	}
 	
 	private Cursor getCursor(SelectStatement query) {
-		mAdapter.open();
+		Operation previous = mAdapter.beginOperation(Operation.FETCH);
+		
+		try {
+			mAdapter.openForReading();
+		} finally {
+			mAdapter.endOperation(previous);
+		}
+		
 		return mAdapter.query(query);
 	}
 	
@@ -61,31 +75,62 @@ public class QuerySet<T extends Model> extends DbAdapterReference implements Ite
 		mAdapter.close();
 	}
 	
-	public T get(int id) {
+	/**
+	 * Creates a query, that only returns the rows of the current
+	 * query matching the given statement. The current query is 
+	 * not changed. 
+	 */
+	private SelectStatement restrict(Statement stmt) {
+		if(mQuery.selectsRowsOf(mAdapter.getTableName(mClass))) {
+			return mQuery.clone().and(stmt);
+		}
+		
 		Where where = new Where();
-		where.setStatement(new Statement(Model.PK, id));
+		where.setStatement(stmt);
 		
+		SelectStatement query = new SelectStatement();
+		query.from(mQuery)
+			 .where(where);
+		
+		return query;
+	}
+	
+	public T get(int id) {
 		if(mQuery == null) {
 			mQuery = new SelectStatement();
 			mQuery.from(mAdapter.getTableName(mClass));
 		}
 		
-		mQuery.where(where);
-		
-		Cursor c = getCursor(mQuery);
+		Cursor c = getCursor(restrict(new Statement(Model.PK, id)));
 		T object = createObject(c);
 		closeConnection(c);
 		
 		return object;
 	}
 	
+	/**
+	 * Orders the results by the given columns. 
+	 * <br /><br />
+	 * The ordering is added to the current query, so that SQLite
+	 * can use an index to sort the rows and stop early on a limit. 
+	 * Only if the query already has a limit or reads from a join
+	 * it is wrapped, as the ordering would otherwise be applied
+	 * before the limit or could refer to ambiguous columns. 
+	 * 
+	 * @param columns	Columns to order by. See {@link OrderBy}.
+	 * @return			<code>this</code> for chaining.
+	 */
 	public QuerySet<T> orderBy(String... columns) {
 		if(mQuery != null) {
-			SelectStatement query = new SelectStatement();
-			query.from(mQuery)
-				 .orderBy(columns);
-
-			mQuery = query;
+			if(mQuery.hasLimit() || mQuery.isJoin()) {
+				SelectStatement query = new SelectStatement();
+				query.from(mQuery)
+					 .orderBy(columns);
+	
+				mQuery = query;
+			} else {
+				mQuery = mQuery.clone().orderBy(columns);
+			}
 		}
 		
 		return this;
@@ -93,7 +138,7 @@ public class QuerySet<T extends Model> extends DbAdapterReference implements Ite
 	
 	public QuerySet<T> distinct() {
 		if(mQuery != null) {
-			mQuery.distinct();
+			mQuery = mQuery.clone().distinct();
 		}
 		
 		return this;
@@ -108,12 +153,37 @@ public class QuerySet<T extends Model> extends DbAdapterReference implements Ite
 		return this;
 	}
 	
+	/**
+	 * Restricts this set to the rows matching the given {@link Filter}. 
+	 * <br /><br />
+	 * If the current query still returns the plain rows of the table,
+	 * the rules of the filter are added to its WHERE clause. Thus
+	 * chained filters result in the same query as a single filter
+	 * with all rules. This also holds after {@link #orderBy(String...)},
+	 * whose ordering is kept. Otherwise, e.g. after a call to 
+	 * {@link #limit(int)}, the current query is joined with the 
+	 * query of the filter. 
+	 * 
+	 * @param filter	{@link Filter} to apply.
+	 * @return			<code>this</code> for chaining.
+	 * 
+	 * @throws NoSuchFieldException If a rule does not lead to a field.
+	 */
 	public QuerySet<T> filter(Filter filter) throws NoSuchFieldException {
-		SelectStatement query = mAdapter.getQueryBuilder().buildQuery(mClass, filter.getRules());
+		QueryBuilder builder = mAdapter.getQueryBuilder();
+		List<Rule> rules = filter.getRules();
 		
 		if(mQuery == null) {
-			mQuery = query;
+			mQuery = builder.buildQuery(mClass, rules);
+		} else if(mQuery.selectsRowsOf(mAdapter.getTableName(mClass))) {
+			if(!rules.isEmpty()) {
+				Where where = builder.buildWhere(mClass, rules);
+				
+				mQuery = mQuery.clone().and(where.getStatement());
+			}
 		} else {
+			SelectStatement query = builder.buildQuery(mClass, rules);
+			
 			JoinStatement join = new JoinStatement();
 			join.left(mQuery, "left")
 				.right(query, "right")
@@ -138,7 +208,7 @@ public class QuerySet<T extends Model> extends DbAdapterReference implements Ite
 	
 	public QuerySet<T> limit(Limit limit) {
 		if(mQuery != null) {
-			mQuery.limit(limit);
+			mQuery = mQuery.clone().limit(limit);
 		}
 		
 		return this;
@@ -164,9 +234,16 @@ public class QuerySet<T extends Model> extends DbAdapterReference implements Ite
 	
 	private List<T> createObjects(Cursor c) {
 		List<T> items = new ArrayList<T>();
+		RowMapper<T> mapper = null;
 		
 		while(c.moveToNext()) {
-			T object = Model.createObject(mClass, c, mAdapter);
+			T object = mAdapter.getInstance(mClass);
+			
+			if(mapper == null) {
+				mapper = mAdapter.getModelCache().getRowMapper(mClass, c, object, mAdapter);
+			}
+			
+			object = Model.createObject(mClass, c, object, mapper);
 			
 			if(object != null) {
 				items.add(object);
@@ -178,39 +255,159 @@ public class QuerySet<T extends Model> extends DbAdapterReference implements Ite
 	
 	private List<T> getItems() {
 		if(mItems == null) {
-			mItems = new ArrayList<T>();
-			
-			if(mQuery != null) {
-				Cursor c = getCursor(mQuery);
-				mItems.addAll(createObjects(c));
-				closeConnection(c);
-			}
+			mItems = fetch(mQuery);
 		}
 		
 		return mItems;
 	}
 	
+	/**
+	 * Executes the given query without touching this set.
+	 *
+	 * @param query	The query or <code>null</code> for no rows.
+	 * @return		A new list of the resulting models.
+	 */
+	private List<T> fetch(SelectStatement query) {
+		if(query == null) {
+			return new ArrayList<T>();
+		}
+		
+		Cursor c = getCursor(query);
+		
+		try {
+			return createObjects(c);
+		} finally {
+			closeConnection(c);
+		}
+	}
+	
+	/**
+	 * @return	The query of this set or, if there is none yet, a
+	 * 			new query for all rows of the table. The set itself
+	 * 			is not changed.
+	 */
+	private SelectStatement getQueryOrAll() {
+		if(mQuery != null) {
+			return mQuery;
+		}
+		
+		SelectStatement query = new SelectStatement();
+		query.from(mAdapter.getTableName(mClass));
+		
+		return query;
+	}
+	
 	@Override
 	public Iterator<T> iterator() {
 		return getItems().iterator();
 	}
 	
-	private int getCount(SelectStatement query) {
-		SelectStatement countQuery = new SelectStatement();
-		countQuery.from(query)
-			 	  .count();
+	/**
+	 * Executes the query and passes every row to the consumer. 
+	 * Unlike {@link #iterate()} only a single model instance 
+	 * is created, which is filled again with each row. This 
+	 * makes scans, that only read the values of each row, 
+	 * almost free of allocations. 
+	 * <br /><br />
+	 * <b>The instance must not escape the callback</b>: It must
+	 * neither be kept, nor saved, nor changed, as its values 
+	 * are overwritten by the next row. Copy the values, that 
+	 * are needed afterwards. Relations are loaded on demand 
+	 * for the current row like on any other instance. 
+	 * <br /><br />
+	 * The lock of the adapter is held until all rows have been 
+	 * consumed. 
+	 * 
+	 * @param consumer	Callback, that is called for each row.
+	 * @return			Number of rows.
+	 */
+	public int forEachReusing(ModelConsumer<? super T> consumer) {
+		if(mQuery == null) {
+			return 0;
+		}
 		
-		Cursor c = getCursor(countQuery);
+		Cursor c = getCursor(mQuery);
+		int rows = 0;
 		
-		int count = 0;
+		try {
+			T object = null;
+			RowMapper<T> mapper = null;
+			
+			while(c.moveToNext()) {
+				if(object == null) {
+					object = mAdapter.getInstance(mClass);
+					mapper = mAdapter.getModelCache().getRowMapper(mClass, c, object, mAdapter);
+				}
+				
+				Model.createObject(mClass, c, object, mapper);
+				consumer.accept(object);
+				rows++;
+			}
+		} finally {
+			closeConnection(c);
+		}
 		
-		if(c.moveToFirst()) {
-			count = c.getInt(c.getColumnIndexOrThrow(Model.COUNT));
+		return rows;
+	}
+	
+	/**
+	 * Executes the query and returns its result one model at a 
+	 * time, instead of loading all of them at once like 
+	 * {@link #iterator()} does. The iterator holds the cursor 
+	 * and the lock of the adapter until it has been read to its 
+	 * end or is closed. See {@link QueryIterator}.
+	 * <br /><br />
+	 * Usage:
+	 * <pre>
+	 * QueryIterator&lt;Foo&gt; it = Foo.objects(context).all().iterate();
+	 * 
+	 * try {
+	 *     while(it.hasNext()) {
+	 *         Foo foo = it.next();
+	 *     }
+	 * } finally {
+	 *     it.close();
+	 * }
+	 * </pre>
+	 * 
+	 * @return	A new iterator over the result of the query.
+	 */
+	public QueryIterator<T> iterate() {
+		if(mQuery == null) {
+			return new QueryIterator<T>(mClass, null, mAdapter);
 		}
 		
-		closeConnection(c);
+		Cursor c = getCursor(mQuery);
 		
-		return count;
+		return new QueryIterator<T>(mClass, c, mAdapter);
+	}
+	
+	private int getCount(SelectStatement query) {
+		SelectStatement countQuery;
+		
+		if(query.hasLimit() || query.isDistinct()) {
+			countQuery = new SelectStatement();
+			countQuery.from(query)
+				 	  .count();
+		} else {
+			/*
+			 * Without limit and DISTINCT the number of rows does 
+			 * not depend on the selected columns or the ordering. 
+			 */
+			countQuery = query.clone()
+							  .orderBy((OrderBy) null)
+							  .count();
+		}
+		
+		Operation previous = mAdapter.beginOperation(Operation.COUNT);
+		mAdapter.openForReading();
+		
+		try {
+			return (int) mAdapter.queryForLong(countQuery);
+		} finally {
+			mAdapter.close();
+			mAdapter.endOperation(previous);
+		}
 	}
 
 	/**
@@ -223,14 +420,7 @@ public class QuerySet<T extends Model> extends DbAdapterReference implements Ite
 	 */
 	public boolean contains(T value) {
 		if(mQuery != null) {
-			Where where = new Where();
-			where.setStatement(new Statement(Model.PK, value.getId()));
-			
-			SelectStatement query = new SelectStatement();
-			query.from(mQuery)
-				 .where(where);
-			
-			return getCount(query) != 0;
+			return getCount(restrict(new Statement(Model.PK, value.getId()))) != 0;
 		}
 		
 		return false;
@@ -249,19 +439,22 @@ public class QuerySet<T extends Model> extends DbAdapterReference implements Ite
 				ids.add(item.getId());
 			}
 			
-			Where where = new Where();
-			where.setStatement(new InStatement(Model.PK, ids));
-			
-			SelectStatement query = new SelectStatement();
-			query.from(mQuery)
-				 .where(where);
-			
-			return getCount(query) == values.size();
+			return getCount(restrict(new InStatement(Model.PK, ids))) == values.size();
 		}
 		
 		return false;
 	}
 
+	/**
+	 * Inserts all given models at once. See {@link DatabaseAdapter#bulkCreate(Collection)}.
+	 * 
+	 * @param models	Models to insert.
+	 * @return			Number of inserted rows.
+	 */
+	public int bulkCreate(Collection<T> models) {
+		return mAdapter.bulkCreate(models);
+	}
+
 	public boolean isEmpty() {
 		return count() == 0;
 	}
@@ -269,4 +462,316 @@ public class QuerySet<T extends Model> extends DbAdapterReference implements Ite
 	public List<T> toList() {
 		return getItems();
 	}
+	
+	/**
+	 * Executes the query, but only reads the given fields. Each 
+	 * row is returned as an array holding the values of the 
+	 * fields in the given order. No models are created. 
+	 * <br /><br />
+	 * Values have the type of the corresponding {@link DataField}, 
+	 * except for foreign keys, which are returned as the id of 
+	 * the referenced model. 
+	 * 
+	 * @param fieldNames	Names of data fields of the model.
+	 * @return				One array of values per row.
+	 * @throws NoSuchFieldException	If the model has no data field
+	 * 								with one of the names.
+	 */
+	public List<Object[]> valuesList(String... fieldNames) throws NoSuchFieldException {
+		T scratch = mAdapter.getInstance(mClass);
+		DataField<?>[] fields = getDataFields(scratch, fieldNames);
+		
+		List<String> columns = new ArrayList<String>();
+		
+		for(int i = 0; i < fields.length; i++) {
+			columns.addAll(Arrays.asList(fields[i].getColumns(fieldNames[i])));
+		}
+		
+		SelectStatement query = getQueryOrAll().project(columns.toArray(new String[columns.size()]));
+		List<Object[]> rows = new ArrayList<Object[]>();
+		
+		Cursor c = getCursor(query);
+		
+		try {
+			int[] indexes = new int[fields.length];
+			
+			for(int i = 0; i < fields.length; i++) {
+				indexes[i] = c.getColumnIndex(fieldNames[i]);
+			}
+			
+			while(c.moveToNext()) {
+				Object[] row = new Object[fields.length];
+				
+				for(int i = 0; i < fields.length; i++) {
+					row[i] = readValue(fields[i], c, indexes[i], fieldNames[i]);
+				}
+				
+				rows.add(row);
+			}
+		} finally {
+			closeConnection(c);
+		}
+		
+		return rows;
+	}
+	
+	/**
+	 * See {@link #valuesList(String...)}. Each row is returned as
+	 * a {@link Map} from the field names to their values. 
+	 * 
+	 * @param fieldNames	Names of data fields of the model.
+	 * @return				One map per row.
+	 * @throws NoSuchFieldException	If the model has no data field
+	 * 								with one of the names.
+	 */
+	public List<Map<String, Object>> values(String... fieldNames) throws NoSuchFieldException {
+		List<Map<String, Object>> rows = new ArrayList<Map<String, Object>>();
+		
+		for(Object[] values : valuesList(fieldNames)) {
+			Map<String, Object> row = new LinkedHashMap<String, Object>();
+			
+			for(int i = 0; i < fieldNames.length; i++) {
+				row.put(fieldNames[i], values[i]);
+			}
+			
+			rows.add(row);
+		}
+		
+		return rows;
+	}
+	
+	/**
+	 * Executes the query and reads the values of a single 
+	 * numeric field into an array. No models are created and 
+	 * no value is boxed. NULL is read as 0. 
+	 * 
+	 * @param fieldName	Name of a data field of the model, 
+	 * 					that is stored in a single column.
+	 * @return			Value of the field for each row.
+	 * @throws NoSuchFieldException	If the model has no such field.
+	 */
+	public int[] intColumn(String fieldName) throws NoSuchFieldException {
+		Cursor c = getColumnCursor(fieldName);
+		int[] values = new int[16];
+		int size = 0;
+		
+		try {
+			while(c.moveToNext()) {
+				if(size == values.length) {
+					values = copy(values, size * 2);
+				}
+				
+				values[size++] = c.getInt(0);
+			}
+		} finally {
+			closeConnection(c);
+		}
+		
+		return copy(values, size);
+	}
+	
+	/**
+	 * See {@link #intColumn(String)}.
+	 */
+	public long[] longColumn(String fieldName) throws NoSuchFieldException {
+		Cursor c = getColumnCursor(fieldName);
+		long[] values = new long[16];
+		int size = 0;
+		
+		try {
+			while(c.moveToNext()) {
+				if(size == values.length) {
+					values = copy(values, size * 2);
+				}
+				
+				values[size++] = c.getLong(0);
+			}
+		} finally {
+			closeConnection(c);
+		}
+		
+		return copy(values, size);
+	}
+	
+	/**
+	 * See {@link #intColumn(String)}.
+	 */
+	public double[] doubleColumn(String fieldName) throws NoSuchFieldException {
+		Cursor c = getColumnCursor(fieldName);
+		double[] values = new double[16];
+		int size = 0;
+		
+		try {
+			while(c.moveToNext()) {
+				if(size == values.length) {
+					values = copy(values, size * 2);
+				}
+				
+				values[size++] = c.getDouble(0);
+			}
+		} finally {
+			closeConnection(c);
+		}
+		
+		return copy(values, size);
+	}
+	
+	/**
+	 * See {@link #intColumn(String)}. Values other than 0 are 
+	 * read as true, like {@link BooleanField} stores them. 
+	 */
+	public boolean[] booleanColumn(String fieldName) throws NoSuchFieldException {
+		Cursor c = getColumnCursor(fieldName);
+		boolean[] values = new boolean[16];
+		int size = 0;
+		
+		try {
+			while(c.moveToNext()) {
+				if(size == values.length) {
+					values = copy(values, size * 2);
+				}
+				
+				values[size++] = c.getInt(0) != 0;
+			}
+		} finally {
+			closeConnection(c);
+		}
+		
+		return copy(values, size);
+	}
+	
+	private Cursor getColumnCursor(String fieldName) throws NoSuchFieldException {
+		T prototype = mAdapter.getPrototype(mClass);
+		String[] columns = getDataFields(prototype, new String[] { fieldName })[0].getColumns(fieldName);
+		
+		if(columns.length != 1) {
+			throw new NoSuchFieldException("Field " 
+					+ fieldName 
+					+ " of class " 
+					+ mClass.getSimpleName() 
+					+ " is stored in " 
+					+ columns.length 
+					+ " columns!");
+		}
+		
+		return getCursor(getQueryOrAll().project(columns));
+	}
+	
+	private static int[] copy(int[] values, int length) {
+		int[] result = new int[length];
+		System.arraycopy(values, 0, result, 0, Math.min(values.length, length));
+		
+		return result;
+	}
+	
+	private static long[] copy(long[] values, int length) {
+		long[] result = new long[length];
+		System.arraycopy(values, 0, result, 0, Math.min(values.length, length));
+		
+		return result;
+	}
+	
+	private static double[] copy(double[] values, int length) {
+		double[] result = new double[length];
+		System.arraycopy(values, 0, result, 0, Math.min(values.length, length));
+		
+		return result;
+	}
+	
+	private static boolean[] copy(boolean[] values, int length) {
+		boolean[] result = new boolean[length];
+		System.arraycopy(values, 0, result, 0, Math.min(values.length, length));
+		
+		return result;
+	}
+	
+	private DataField<?>[] getDataFields(T instance, String[] fieldNames) throws NoSuchFieldException {
+		FieldPlan plan = instance.getFieldPlan(mClass);
+		DataField<?>[] fields = new DataField<?>[fieldNames.length];
+		
+		try {
+			for(int i = 0; i < fieldNames.length; i++) {
+				for(ModelField field : plan.getDataFields()) {
+					if(field.getName().equals(fieldNames[i])) {
+						fields[i] = (DataField<?>) field.get(instance);
+						break;
+					}
+				}
+				
+				if(fields[i] == null) {
+					List<String> choices = new ArrayList<String>();
+					
+					for(ModelField field : plan.getDataFields()) {
+						choices.add(field.getName());
+					}
+					
+					throw new NoSuchFieldException("No data field named " 
+							+ fieldNames[i] 
+							+ " was found in class " 
+							+ mClass.getSimpleName() 
+							+ "! Choices are: " 
+							+ choices.toString());
+				}
+			}
+		} catch(IllegalAccessException e) {
+			throw new IllegalStateException("can not access fields of " + mClass.getSimpleName(), e);
+		}
+		
+		return fields;
+	}
+	
+	private Object readValue(DataField<?> field, Cursor c, int index, String fieldName) {
+		if(index == -1) {
+			field.set(c, fieldName);
+		} else {
+			field.set(c, index);
+		}
+		
+		if(field instanceof ForeignKeyField) {
+			// the id, as get() would load the referenced model
+			return ((ForeignKeyField<?>) field).getmReference();
+		}
+		
+		return field.get();
+	}
+	
+	/**
+	 * Executes the query on the read executor of the adapter. 
+	 * See {@link DatabaseAdapter#setReadExecutor}. The query is
+	 * taken when this method is called, so the query set can be
+	 * changed right away. The result is not kept by the query
+	 * set: {@link #toList()} executes the query again.
+	 *
+	 * @return	{@link Future} of a new list of the resulting models.
+	 */
+	public Future<List<T>> fetchAsync() {
+		final SelectStatement query = mQuery;
+		
+		return mAdapter.submitRead(new Callable<List<T>>() {
+			
+			@Override
+			public List<T> call() {
+				return fetch(query);
+			}
+		});
+	}
+	
+	/**
+	 * Counts the results of the query on the read executor of the
+	 * adapter. See {@link #count()}. The query is taken when this
+	 * method is called.
+	 *
+	 * @return	{@link Future} of the count.
+	 */
+	public Future<Integer> countAsync() {
+		final SelectStatement query = getQueryOrAll();
+		
+		return mAdapter.submitRead(new Callable<Integer>() {
+			
+			@Override
+			public Integer call() {
+				return getCount(query);
+			}
+		});
+	}
 }
@@ -0,0 +1,103 @@
+/**
+ * Copyright (C) 2012 Clyde Stubbs,   2010 Philipp Giese
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.orm.androrm;
+
+import android.database.Cursor;
+
+/**
+ * Fills instances of a model class from the rows of a {@link Cursor}. The data fields of the
+ * whole class hierarchy and the indexes of their columns are resolved once per class and column
+ * layout, so mapping a row only reads the columns by index.
+ * <p/>
+ * Mappers are cached by the {@link ModelCache}. See {@link #key(Class, Cursor)}.
+ *
+ * @param <T> Model class.
+ */
+public class RowMapper<T extends Model> {
+
+	private final ModelField[] mFields;
+	private final String[] mNames;
+	/**
+	 * Column of each field or -1, if the field is not stored in a single column with its name.
+	 */
+	private final int[] mColumns;
+
+	private RowMapper(ModelField[] fields, Cursor c) {
+		int size = fields.length;
+
+		mFields = fields;
+		mNames = new String[size];
+		mColumns = new int[size];
+
+		for(int i = 0; i < size; i++) {
+			mNames[i] = mFields[i].getName();
+			mColumns[i] = c.getColumnIndex(mNames[i]);
+		}
+	}
+
+	/**
+	 * Resolves the data fields of clazz and its superclasses against the columns of c.
+	 *
+	 * @param clazz    Model class.
+	 * @param c        Cursor, that the mapper will be used for.
+	 * @param instance Instance of clazz to find out which fields hold data.
+	 * @param adapter  Adapter the model belongs to.
+	 * @return A new mapper.
+	 */
+	static <T extends Model> RowMapper<T> create(
+			Class<T> clazz,
+			Cursor c,
+			T instance,
+			DatabaseAdapter adapter) {
+
+		FieldPlan plan = adapter.getModelCache().getFieldPlan(clazz, instance, adapter);
+
+		return new RowMapper<T>(plan.getDataFields(), c);
+	}
+
+	/**
+	 * @return Key of the mapper for clazz and the columns of c.
+	 */
+	static String key(Class<? extends Model> clazz, Cursor c) {
+		StringBuilder key = new StringBuilder(clazz.getName());
+
+		for(String column : c.getColumnNames())
+			key.append(',').append(column);
+
+		return key.toString();
+	}
+
+	/**
+	 * Fills object with the current row of c.
+	 *
+	 * @param object Instance to fill.
+	 * @param c      Cursor with the same columns as the one this mapper was created for.
+	 * @throws IllegalAccessException
+	 */
+	public void map(T object, Cursor c) throws IllegalAccessException {
+		for(int i = 0; i < mFields.length; i++) {
+			DataField<?> field = (DataField<?>) mFields[i].get(object);
+
+			if(mColumns[i] == -1)
+				field.set(c, mNames[i]);
+			else
+				field.set(c, mColumns[i]);
+		}
+	}
+}
@@ -22,11 +22,17 @@
  */
 package com.orm.androrm;
 
+import java.util.List;
+
 import android.util.Log;
 
 /**
  * By utilizing this class you can build complex select statements. 
  * If no fields are given, SELECT * will be assumed.
+ * <br /><br />
+ * Subqueries and joins are kept as objects until the statement is 
+ * rendered, so that {@link #toSql(List)} can collect the bind
+ * arguments of the whole statement tree in order. 
  * 
  * @author Philipp Giese
  */
@@ -36,6 +42,8 @@ public class SelectStatement implements Cloneable {
 	
 	private String[] mFields = new String[] { "*" };
 	private String mFrom;
+	private SelectStatement mFromSelect;
+	private JoinStatement mFromJoin;
 	private Where mWhere;
 	private OrderBy mOrderBy;
 	private Limit mLimit;
@@ -87,9 +95,21 @@ public class SelectStatement implements Cloneable {
 		return fields;
 	}
 	
-	private String buildWhere() {
+	private String buildFrom(List<Object> args) {
+		if(mFromSelect != null) {
+			return "(" + mFromSelect.toSql(args) + ")";
+		}
+		
+		if(mFromJoin != null) {
+			return mFromJoin.toSql(args);
+		}
+		
+		return mFrom;
+	}
+	
+	private String buildWhere(List<Object> args) {
 		if(mWhere != null) {
-			return mWhere.toString();
+			return mWhere.toSql(args);
 		}
 		
 		return "";
@@ -134,7 +154,9 @@ public class SelectStatement implements Cloneable {
 	 * @return
 	 */
 	public SelectStatement from(JoinStatement join) {
-		mFrom = join.toString();
+		mFrom = null;
+		mFromSelect = null;
+		mFromJoin = join;
 		
 		return this;
 	}
@@ -150,12 +172,16 @@ public class SelectStatement implements Cloneable {
 	 */
 	public SelectStatement from(String table) {
 		mFrom = "`" + table + "`";
+		mFromSelect = null;
+		mFromJoin = null;
 		
 		return this;
 	}
 	
 	public SelectStatement from(SelectStatement select) {
-		mFrom = "(" + select.toString() + ")";
+		mFrom = null;
+		mFromSelect = select;
+		mFromJoin = null;
 		
 		return this;
 	}
@@ -213,17 +239,30 @@ public class SelectStatement implements Cloneable {
 		return this;
 	}
 	
-	@Override
-	public String toString() {
+	/**
+	 * Creates the SQL of this select. See {@link Statement#toSql(List)}.
+	 * 
+	 * @param args	{@link List} receiving the bind arguments or <code>null</code>
+	 * 				to inline all values.
+	 * @return SQL of this select. 
+	 */
+	public String toSql(List<Object> args) {
+		String from = buildFrom(args);
+		
 		return "SELECT"
 			+ buildDistinct()
 			+ buildSelect()
-			+ " FROM " + mFrom
-			+ buildWhere()
+			+ " FROM " + from
+			+ buildWhere(args)
 			+ buildOrderBy()
 			+ buildLimit();
 	}
 	
+	@Override
+	public String toString() {
+		return toSql(null);
+	}
+	
 	/**
 	 * Hand in a {@link Where} statement to drill down 
 	 * the results of the select. 
@@ -243,6 +282,115 @@ public class SelectStatement implements Cloneable {
 		return mWhere;
 	}
 	
+	public boolean hasLimit() {
+		return mLimit != null;
+	}
+	
+	public boolean isDistinct() {
+		return mDistinct;
+	}
+	
+	/**
+	 * Checks if this select reads from a {@link JoinStatement}. As
+	 * both sides of a join may have columns of the same name, 
+	 * unqualified column names can be ambiguous on such a select.
+	 * 
+	 * @return True, if this select reads from a join.
+	 */
+	public boolean isJoin() {
+		return mFromJoin != null;
+	}
+	
+	/**
+	 * Adds the given {@link Statement} to the {@link Where} clause
+	 * of this select. If there already is a constraint, both are
+	 * combined by AND. 
+	 * <br /><br />
+	 * The current {@link Where} object is not changed, but 
+	 * replaced, so that copies of this select are not affected. 
+	 * 
+	 * @param stmt	{@link Statement} to add.
+	 * @return
+	 */
+	public SelectStatement and(Statement stmt) {
+		Where where = new Where();
+		
+		if(mWhere != null && mWhere.getStatement() != null) {
+			where.and(mWhere.getStatement());
+		}
+		
+		where.and(stmt);
+		mWhere = where;
+		
+		return this;
+	}
+	
+	/**
+	 * Checks if this select returns the plain rows of the given 
+	 * table. This is the case, if it selects all columns from 
+	 * the table itself and is neither distinct nor a count and 
+	 * has no limit. Constraints on such a select can be added 
+	 * to its {@link Where} clause, without changing the meaning
+	 * of the select. An ordering is kept, as it does not depend 
+	 * on which rows are selected. 
+	 * 
+	 * @param table	Name of the table.
+	 * @return		True, if constraints can be merged into this select.
+	 */
+	public boolean selectsRowsOf(String table) {
+		return ("`" + table + "`").equals(mFrom)
+				&& mFields.length == 1
+				&& mFields[0].equals("*")
+				&& !mDistinct
+				&& !mCount
+				&& mLimit == null;
+	}
+	
+	/**
+	 * Creates a select, that only returns the given columns of 
+	 * the rows of this select. If this select returns all 
+	 * columns of a single source like * or a.*, the columns 
+	 * are selected by a copy of this select directly. 
+	 * Otherwise, e.g. if it is distinct, this select is used 
+	 * as a subquery. 
+	 * <br /><br />
+	 * This select is not changed. 
+	 * 
+	 * @param columns	Names of the columns.
+	 * @return			The new select.
+	 */
+	public SelectStatement project(String... columns) {
+		String wildcard = mFields.length == 1 ? mFields[0] : "";
+		boolean ownColumns = wildcard.endsWith(".*") 
+				|| (wildcard.equals("*") && mFromJoin == null);
+		
+		if(mCount || mDistinct || !ownColumns) {
+			String[] quoted = new String[columns.length];
+			
+			for(int i = 0; i < columns.length; i++) {
+				quoted[i] = "`" + columns[i] + "`";
+			}
+			
+			SelectStatement select = new SelectStatement();
+			select.from(this)
+				  .select(quoted);
+			
+			return select;
+		}
+		
+		String prefix = wildcard.substring(0, wildcard.length() - 1);
+		String[] qualified = new String[columns.length];
+		
+		for(int i = 0; i < columns.length; i++) {
+			qualified[i] = prefix + "`" + columns[i] + "`";
+		}
+		
+		SelectStatement select = clone();
+		select.mFields = qualified;
+		
+		return select;
+	}
+	
 	@Override
 	public SelectStatement clone() {
 		try {
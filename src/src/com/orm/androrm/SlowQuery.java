@@ -0,0 +1,141 @@
+/**
+ * Copyright (C) 2012 Clyde Stubbs,   2010 Philipp Giese
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.orm.androrm;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A statement, that took longer than the threshold of the slow query log of a
+ * {@link DatabaseAdapter}. See {@link DatabaseAdapter#setSlowQueryLog(long, int)}.
+ * <p/>
+ * Besides the SQL and its duration it holds the detail column of EXPLAIN QUERY PLAN for the
+ * statement, so that full table scans and temporary sorts caused by the generated SQL can be
+ * spotted without running the statement again.
+ */
+public class SlowQuery {
+
+	private final String mSql;
+	private final String[] mArgs;
+	private final long mDuration;
+	private final long mTime;
+	private final List<String> mPlan;
+
+	/**
+	 * @param sql      SQL of the statement.
+	 * @param args     Bind arguments or <code>null</code>.
+	 * @param duration Execution time in nanoseconds.
+	 * @param time     Time the statement finished in milliseconds.
+	 * @param plan     Detail column of each step of the query plan.
+	 */
+	public SlowQuery(String sql, String[] args, long duration, long time, List<String> plan) {
+		mSql = sql;
+		mArgs = args;
+		mDuration = duration;
+		mTime = time;
+		mPlan = Collections.unmodifiableList(plan);
+	}
+
+	public String getSql() {
+		return mSql;
+	}
+
+	/**
+	 * @return Bind arguments of the statement or <code>null</code> if there were none.
+	 */
+	public String[] getArgs() {
+		return mArgs == null ? null : mArgs.clone();
+	}
+
+	/**
+	 * @return Execution time in nanoseconds. For queries this includes counting their rows and
+	 *         reading the first window of the cursor, see
+	 *         {@link DatabaseAdapter#setSlowQueryLog(long, int)}.
+	 */
+	public long getDuration() {
+		return mDuration;
+	}
+
+	/**
+	 * @return Time the statement finished as returned by {@link System#currentTimeMillis()}.
+	 */
+	public long getTime() {
+		return mTime;
+	}
+
+	/**
+	 * @return Steps of the query plan. Empty if the plan could not be captured.
+	 */
+	public List<String> getPlan() {
+		return mPlan;
+	}
+
+	/**
+	 * Checks for steps, that read a whole table or subquery without the help of an index, like
+	 * "SCAN TABLE foo" or "SCAN foo" in newer versions of SQLite. Scans of a rowid range, like
+	 * "SCAN TABLE foo USING INTEGER PRIMARY KEY (rowid&gt;?)", don't count.
+	 *
+	 * @return True if the plan contains such a step.
+	 */
+	public boolean isFullScan() {
+		for(String step : mPlan)
+			if(step.startsWith("SCAN ")
+					&& !step.contains(" INDEX ")
+					&& !step.contains(" INTEGER PRIMARY KEY")
+					&& !step.equals("SCAN CONSTANT ROW"))
+				return true;
+
+		return false;
+	}
+
+	/**
+	 * Checks for "USE TEMP B-TREE" steps, i.e. sorting or grouping, that could not use an index.
+	 *
+	 * @return True if the plan contains such a step.
+	 */
+	public boolean usesTempBTree() {
+		for(String step : mPlan)
+			if(step.contains("USE TEMP B-TREE"))
+				return true;
+
+		return false;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder result = new StringBuilder(mDuration / 1000 + "us");
+
+		if(isFullScan())
+			result.append(" [SCAN]");
+
+		if(usesTempBTree())
+			result.append(" [TEMP B-TREE]");
+
+		result.append(": " + mSql);
+
+		if(mArgs != null)
+			result.append(" " + Arrays.toString(mArgs));
+
+		for(String step : mPlan)
+			result.append("\n  " + step);
+
+		return result.toString();
+	}
+}
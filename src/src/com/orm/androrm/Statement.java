@@ -23,6 +23,7 @@
 package com.orm.androrm;
 
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 
 /**
@@ -50,9 +51,15 @@ import java.util.Set;
  *   OR_STMT <b>-></b> STMT <b>OR</b> STMT
  * </pre>
  * 
+ * Statements can either be rendered with their values inlined as quoted
+ * literals ({@link #toString()}) or with <code>?</code> placeholders and
+ * a separate list of bind arguments ({@link #toSql(List)}). The latter 
+ * is used to query the database, so that SQLite can reuse compiled 
+ * statements for queries, that only differ in their values.
+ * 
  * @author Philipp Giese
  */
-public class Statement {
+public class Statement implements Cloneable {
 	
 	/**
 	 * Key of the statement.
@@ -119,8 +126,62 @@ public class Statement {
 		mKey = key;
 	}
 	
+	/**
+	 * Creates a copy of this statement, that applies to another key. 
+	 * This statement is not changed, so it can be used again.
+	 * 
+	 * @param key New key.
+	 * @return The copy.
+	 */
+	public Statement withKey(String key) {
+		Statement copy;
+		
+		try {
+			copy = (Statement) clone();
+		} catch(CloneNotSupportedException e) {
+			// statements are cloneable
+			throw new IllegalStateException(e);
+		}
+		
+		copy.setKey(key);
+		
+		return copy;
+	}
+	
+	/**
+	 * Adds a value to the statement. If args is <code>null</code> the
+	 * value is returned as quoted literal. Otherwise it is appended to 
+	 * args and a placeholder is returned. 
+	 * 
+	 * @param value	Value to add.
+	 * @param args	Bind arguments or <code>null</code>.
+	 * @return SQL representing the value. 
+	 */
+	protected static String bind(Object value, List<Object> args) {
+		if(args == null) {
+			return "'" + value + "'";
+		}
+		
+		args.add(value);
+		
+		return "?";
+	}
+	
+	/**
+	 * Creates the SQL of this statement. All values are replaced by 
+	 * <code>?</code> placeholders and appended to args in the order
+	 * they appear in the SQL. If args is <code>null</code> values 
+	 * are inlined as quoted literals instead.
+	 * 
+	 * @param args	{@link List} receiving the bind arguments or <code>null</code>.
+	 * @return SQL of this statement.
+	 */
+	public String toSql(List<Object> args) {
+		return mKey + " " + mOperator + " " + bind(mValue, args);
+	}
+	
 	@Override
 	public String toString() {
-		return mKey + " " + mOperator + " '" + mValue + "'";
+		return toSql(null);
 	}
 }
@@ -0,0 +1,151 @@
+/**
+ * Copyright (C) 2012 Clyde Stubbs,   2010 Philipp Giese
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.orm.androrm;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
+
+/**
+ * Bounded least recently used cache of compiled statements keyed by their SQL. Compiled
+ * statements belong to the connection they were compiled on, so the cache has to be cleared
+ * whenever that connection is closed or the schema changes.
+ * <p/>
+ * The cache is not thread safe. {@link DatabaseAdapter} only uses it while holding its write
+ * lock. Only the hit and miss counters may be read and reset from any thread.
+ */
+public class StatementCache {
+
+	public static final int DEFAULT_SIZE = 25;
+
+	private final LinkedHashMap<String, SQLiteStatement> mStatements;
+	private int mMaxSize;
+	private final AtomicLong mHits = new AtomicLong();
+	private final AtomicLong mMisses = new AtomicLong();
+
+	public StatementCache(int maxSize) {
+		mMaxSize = maxSize;
+		mStatements = new LinkedHashMap<String, SQLiteStatement>(16, 0.75f, true) {
+
+			private static final long serialVersionUID = 3519430235468021387L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, SQLiteStatement> eldest) {
+				if(size() > mMaxSize) {
+					eldest.getValue().close();
+
+					return true;
+				}
+
+				return false;
+			}
+		};
+	}
+
+	/**
+	 * Returns the compiled statement for the given SQL. If it is not cached yet, it is compiled on
+	 * db and added to the cache. The statement must not be closed by the caller.
+	 *
+	 * @param db  Database to compile the statement on.
+	 * @param sql SQL of the statement.
+	 * @return The compiled statement.
+	 */
+	public SQLiteStatement get(SQLiteDatabase db, String sql) {
+		SQLiteStatement statement = mStatements.get(sql);
+
+		if(statement != null) {
+			mHits.incrementAndGet();
+
+			return statement;
+		}
+
+		mMisses.incrementAndGet();
+		statement = db.compileStatement(sql);
+		mStatements.put(sql, statement);
+
+		return statement;
+	}
+
+	/**
+	 * Closes and removes all cached statements. The counters are left untouched.
+	 */
+	public void clear() {
+		Iterator<SQLiteStatement> statements = mStatements.values().iterator();
+
+		while(statements.hasNext()) {
+			statements.next().close();
+			statements.remove();
+		}
+	}
+
+	public long getHitCount() {
+		return mHits.get();
+	}
+
+	public long getMissCount() {
+		return mMisses.get();
+	}
+
+	/**
+	 * @return Share of lookups, that could be served from the cache, between 0 and 1.
+	 */
+	public double getHitRate() {
+		long hits = mHits.get();
+		long lookups = hits + mMisses.get();
+
+		if(lookups == 0)
+			return 0;
+
+		return (double) hits / lookups;
+	}
+
+	public int getMaxSize() {
+		return mMaxSize;
+	}
+
+	/**
+	 * Changes the number of statements kept. Shrinking the cache closes the least recently used
+	 * statements right away.
+	 *
+	 * @param maxSize Maximum number of cached statements.
+	 */
+	public void setMaxSize(int maxSize) {
+		mMaxSize = maxSize;
+
+		Iterator<SQLiteStatement> statements = mStatements.values().iterator();
+
+		while(mStatements.size() > mMaxSize && statements.hasNext()) {
+			statements.next().close();
+			statements.remove();
+		}
+	}
+
+	public int size() {
+		return mStatements.size();
+	}
+
+	public void resetCounters() {
+		mHits.set(0);
+		mMisses.set(0);
+	}
+}
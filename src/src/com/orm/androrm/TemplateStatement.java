@@ -0,0 +1,90 @@
+/**
+ * Copyright (C) 2012 Clyde Stubbs,   2010 Philipp Giese
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.orm.androrm;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * A {@link Statement} made of precompiled SQL with <code>?</code> 
+ * placeholders and the values for these placeholders. 
+ * <br /><br />
+ * {@link QueryBuilder} uses it to reuse the SQL it once created 
+ * for a {@link Filter}, when a filter with the same rules, but
+ * different values is applied again. 
+ */
+public class TemplateStatement extends Statement {
+
+	private String mSql;
+	private Set<String> mKeys;
+	private List<Object> mValues;
+	
+	/**
+	 * @param sql		SQL with one <code>?</code> for each value.
+	 * @param keys		Keys used in the SQL. See {@link Statement#getKeys()}.
+	 * @param values	Values of the placeholders in the order they 
+	 * 					appear in the SQL.
+	 */
+	public TemplateStatement(String sql, Set<String> keys, List<Object> values) {
+		mSql = sql;
+		mKeys = keys;
+		mValues = values;
+	}
+	
+	@Override
+	public Set<String> getKeys() {
+		return new HashSet<String>(mKeys);
+	}
+	
+	@Override
+	public void setKey(String key) {
+		throw new UnsupportedOperationException("the keys of a template cannot be changed");
+	}
+	
+	@Override
+	public Statement withKey(String key) {
+		throw new UnsupportedOperationException("the keys of a template cannot be changed");
+	}
+	
+	@Override
+	public String toSql(List<Object> args) {
+		if(args != null) {
+			args.addAll(mValues);
+			
+			return mSql;
+		}
+		
+		StringBuilder sql = new StringBuilder();
+		int value = 0;
+		
+		for(int i = 0, length = mSql.length(); i < length; i++) {
+			char c = mSql.charAt(i);
+			
+			if(c == '?') {
+				sql.append(bind(mValues.get(value++), null));
+			} else {
+				sql.append(c);
+			}
+		}
+		
+		return sql.toString();
+	}
+	
+}
@@ -0,0 +1,38 @@
+/**
+ * Copyright (C) 2012 Clyde Stubbs,   2010 Philipp Giese
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.orm.androrm;
+
+/**
+ * Unit of work that is executed by {@link DatabaseAdapter#runInTransaction(TransactionCallback)}.
+ * All database operations issued from within {@link #run(DatabaseAdapter)} on the same thread
+ * share one connection and one transaction.
+ *
+ * @param <T> Type of the result handed back to the caller.
+ */
+public interface TransactionCallback<T> {
+
+	/**
+	 * Performs the work of the transaction. Throwing any exception rolls back everything that has
+	 * been written since the transaction was started.
+	 *
+	 * @param adapter The adapter the transaction is running on.
+	 * @return An arbitrary result, that is passed on to the caller.
+	 */
+	public T run(DatabaseAdapter adapter);
+}
@@ -0,0 +1,79 @@
+/**
+ * Copyright (C) 2012 Clyde Stubbs,   2010 Philipp Giese
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.orm.androrm;
+
+import java.util.List;
+import java.util.Map.Entry;
+
+import android.content.ContentValues;
+
+/**
+ * Implements an <code>UPDATE</code> of the columns contained in a {@link ContentValues} object.
+ */
+public class UpdateStatement implements Query {
+
+	private String mTable;
+	private ContentValues mValues;
+	private Where mWhere;
+
+	public UpdateStatement(String table, ContentValues values) {
+		mTable = table;
+		mValues = values;
+	}
+
+	public UpdateStatement where(Where where) {
+		mWhere = where;
+
+		return this;
+	}
+
+	/**
+	 * See {@link Statement#toSql(List)}.
+	 */
+	public String toSql(List<Object> args) {
+		StringBuilder columns = new StringBuilder();
+
+		for(Entry<String, Object> entry : mValues.valueSet()) {
+			if(columns.length() != 0)
+				columns.append(", ");
+
+			columns.append('`').append(entry.getKey()).append("` = ");
+
+			if(args != null) {
+				args.add(entry.getValue());
+				columns.append('?');
+			} else if(entry.getValue() == null)
+				columns.append("NULL");
+			else
+				columns.append('\'').append(entry.getValue()).append('\'');
+		}
+
+		String where = "";
+
+		if(mWhere != null)
+			where = mWhere.toSql(args);
+
+		return "UPDATE `" + mTable + "` SET " + columns + where;
+	}
+
+	@Override
+	public String toString() {
+		return toSql(null);
+	}
+}
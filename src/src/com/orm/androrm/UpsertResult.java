@@ -0,0 +1,47 @@
+/**
+ * Copyright (C) 2012 Clyde Stubbs,   2010 Philipp Giese
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.orm.androrm;
+
+/**
+ * Outcome of {@link DatabaseAdapter#upsert(String, android.content.ContentValues, int)}.
+ */
+public class UpsertResult {
+
+	private long mRowId;
+	private boolean mInserted;
+
+	public UpsertResult(long rowId, boolean inserted) {
+		mRowId = rowId;
+		mInserted = inserted;
+	}
+
+	/**
+	 * @return The id of the written row.
+	 */
+	public long getRowId() {
+		return mRowId;
+	}
+
+	/**
+	 * @return True if a new row was inserted, false if an existing row was updated.
+	 */
+	public boolean isInsert() {
+		return mInserted;
+	}
+}
@@ -23,6 +23,7 @@
 package com.orm.androrm;
 
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 
 import android.database.sqlite.SQLiteDatabase;
@@ -149,12 +150,19 @@ public class Where {
 		return mStatement;
 	}
 	
-	@Override
-	public String toString() {
+	/**
+	 * See {@link Statement#toSql(List)}.
+	 */
+	public String toSql(List<Object> args) {
 		if(mStatement != null) {
-			return " WHERE " + mStatement;
+			return " WHERE " + mStatement.toSql(args);
 		}
 		
 		return null;
 	}
+	
+	@Override
+	public String toString() {
+		return toSql(null);
+	}
 }
@@ -0,0 +1,102 @@
+/**
+ * Copyright (C) 2012 Clyde Stubbs,   2010 Philipp Giese
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.orm.androrm;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Saves of models that are kept in memory until they are written by the next flush. Repeated
+ * saves of the same row only keep the last instance, so a row that is changed many times
+ * between two flushes is only written once.
+ * <p/>
+ * Only models that already have an id are queued, as an autoincrement id has to be known as
+ * soon as {@link Model#save()} returns.
+ */
+class WriteBehindQueue {
+
+	private static final class Key {
+
+		private final Class<?> mClass;
+		private final int mId;
+
+		Key(Model model) {
+			mClass = model.getClass();
+			mId = model.getId();
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if(!(o instanceof Key))
+				return false;
+
+			Key other = (Key) o;
+
+			return mClass == other.mClass && mId == other.mId;
+		}
+
+		@Override
+		public int hashCode() {
+			return 31 * mClass.hashCode() + mId;
+		}
+	}
+
+	private final Map<Key, Model> mPending = new LinkedHashMap<Key, Model>();
+
+	/**
+	 * Queues model. An earlier save of the same row is replaced, but keeps its position.
+	 *
+	 * @param model Model to save.
+	 * @return Number of queued rows.
+	 */
+	synchronized int add(Model model) {
+		mPending.put(new Key(model), model);
+
+		return mPending.size();
+	}
+
+	/**
+	 * @param model Model whose row should not be written anymore.
+	 * @return True if a save of the row has been queued.
+	 */
+	synchronized boolean remove(Model model) {
+		return mPending.remove(new Key(model)) != null;
+	}
+
+	/**
+	 * @return All queued models in the order they were first queued. The queue is empty
+	 *         afterwards.
+	 */
+	synchronized List<Model> drain() {
+		List<Model> models = new ArrayList<Model>(mPending.values());
+		mPending.clear();
+
+		return models;
+	}
+
+	synchronized void clear() {
+		mPending.clear();
+	}
+
+	synchronized int size() {
+		return mPending.size();
+	}
+}
@@ -16,7 +16,8 @@ public class BlankModel extends Model {
 	protected DateField mDate;
 	
 	public BlankModel() {
-		super();
+		super(false);
+		setAdapter(TestDatabase.get());
 		
 		mName = new CharField();
 		mLocation = new LocationField();
@@ -9,6 +9,7 @@ public class BlankModelNoAutoincrement extends Model {
 	
 	public BlankModelNoAutoincrement() {
 		super(true);
+		setAdapter(TestDatabase.get());
 		
 		mName = new CharField();
 	}
@@ -11,7 +11,7 @@ import com.orm.androrm.QuerySet;
 public class Branch extends Model {
 
 	public static QuerySet<Branch> objects(Context context) {
-		return objects(Branch.class);
+		return TestDatabase.get().objects(Branch.class);
 	}
 	
 	protected CharField mName;
@@ -20,12 +20,13 @@ public class Branch extends Model {
 	protected ManyToManyField<Branch, Product> mProducts;
 	
 	public Branch() {
-		super();
+		super(false);
+		setAdapter(TestDatabase.get());
 
 		mName = new CharField(50);
-		mProducts = new ManyToManyField<Branch, Product>(Branch.class, Product.class);
-		mSuppliers = new ManyToManyField<Branch, Supplier>(Branch.class, Supplier.class);
-		mBrand = new ForeignKeyField<Brand>(Brand.class);
+		mProducts = new ManyToManyField<Branch, Product>(Branch.class, Product.class, this);
+		mSuppliers = new ManyToManyField<Branch, Supplier>(Branch.class, Supplier.class, this);
+		mBrand = new ForeignKeyField<Brand>(Brand.class, this);
 	}
 	
 	public void setName(String name) {
@@ -12,16 +12,17 @@ import com.orm.androrm.QuerySet;
 public class Brand extends Model {
 
 	public static final QuerySet<Brand> objects(Context context) {
-		return objects(Brand.class);
+		return TestDatabase.get().objects(Brand.class);
 	}
 	
 	protected OneToManyField<Brand, Branch> mBranches;
 	protected CharField mName;
 	
 	public Brand() {
-		super();
+		super(false);
+		setAdapter(TestDatabase.get());
 		
-		mBranches = new OneToManyField<Brand, Branch>(Brand.class, Branch.class);
+		mBranches = new OneToManyField<Brand, Branch>(Brand.class, Branch.class, this);
 		mName = new CharField();
 	}
 	
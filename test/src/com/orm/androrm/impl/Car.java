@@ -10,17 +10,18 @@ import com.orm.androrm.QuerySet;
 public class Car extends Model {
 
 	public static final QuerySet<Car> objects(Context context) {
-		return objects(Car.class);
+		return TestDatabase.get().objects(Car.class);
 	}
 	
 	protected OneToManyField<Car, Person> mDrivers;
 	protected CharField mName;
 	
 	public Car() {
-		super();
+		super(false);
+		setAdapter(TestDatabase.get());
 		
 		mName = new CharField();
-		mDrivers = new OneToManyField<Car, Person>(Car.class, Person.class);
+		mDrivers = new OneToManyField<Car, Person>(Car.class, Person.class, this);
 	}
 	
 	public void setName(String name) {
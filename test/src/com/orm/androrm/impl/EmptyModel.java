@@ -5,7 +5,8 @@ import com.orm.androrm.Model;
 public class EmptyModel extends Model {
 
 	public EmptyModel() {
-		super();
+		super(false);
+		setAdapter(TestDatabase.get());
 	}
 	
 }
@@ -0,0 +1,37 @@
+package com.orm.androrm.impl;
+
+import com.orm.androrm.CharField;
+import com.orm.androrm.IntegerField;
+
+/**
+ * Inherits the fields of {@link Shop}, which are read through its metadata, while its own 
+ * fields are read by reflection. 
+ */
+public class Outlet extends Shop {
+
+	protected CharField mManager;
+	protected IntegerField mFloors;
+	
+	public Outlet() {
+		super();
+		
+		mManager = new CharField();
+		mFloors = new IntegerField();
+	}
+	
+	public void setManager(String manager) {
+		mManager.set(manager);
+	}
+	
+	public String getManager() {
+		return mManager.get();
+	}
+	
+	public void setFloors(int floors) {
+		mFloors.setInt(floors);
+	}
+	
+	public int getFloors() {
+		return mFloors.getInt();
+	}
+}
@@ -10,17 +10,18 @@ import com.orm.androrm.QuerySet;
 public class Person extends Model {
 
 	public static final QuerySet<Person> objects(Context context) {
-		return objects(Person.class);
+		return TestDatabase.get().objects(Person.class);
 	}
 	
 	protected ForeignKeyField<Car> mCar;
 	protected CharField mName;
 	
 	public Person() {
-		super();
+		super(false);
+		setAdapter(TestDatabase.get());
 		
 		mName = new CharField();
-		mCar = new ForeignKeyField<Car>(Car.class);
+		mCar = new ForeignKeyField<Car>(Car.class, this);
 	}
 	
 	public void setName(String name) {
@@ -12,17 +12,18 @@ import com.orm.androrm.QuerySet;
 public class Product extends Model {
 
 	public static final QuerySet<Product> objects(Context context) {
-		return objects(Product.class);
+		return TestDatabase.get().objects(Product.class);
 	}
 	
 	protected CharField mName;
 	protected ManyToManyField<Product, Branch> mBranches;
 	
 	public Product() {
-		super();
+		super(false);
+		setAdapter(TestDatabase.get());
 		
 		mName = new CharField(50);
-		mBranches = new ManyToManyField<Product, Branch>(Product.class, Branch.class);
+		mBranches = new ManyToManyField<Product, Branch>(Product.class, Branch.class, this);
 	}
 
 	public void setName(String name) {
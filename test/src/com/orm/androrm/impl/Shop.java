@@ -0,0 +1,45 @@
+package com.orm.androrm.impl;
+
+import android.content.Context;
+
+import com.orm.androrm.CharField;
+import com.orm.androrm.ForeignKeyField;
+import com.orm.androrm.Model;
+import com.orm.androrm.QuerySet;
+
+/**
+ * Model with metadata, like the annotation processor generates it. See {@link Shop_Metadata}. 
+ */
+public class Shop extends Model {
+
+	public static final QuerySet<Shop> objects(Context context) {
+		return TestDatabase.get().objects(Shop.class);
+	}
+	
+	protected CharField mName;
+	protected ForeignKeyField<Brand> mBrand;
+	
+	public Shop() {
+		super(false);
+		setAdapter(TestDatabase.get());
+		
+		mName = new CharField();
+		mBrand = new ForeignKeyField<Brand>(Brand.class, this);
+	}
+	
+	public void setName(String name) {
+		mName.set(name);
+	}
+	
+	public String getName() {
+		return mName.get();
+	}
+	
+	public void setBrand(Brand brand) {
+		mBrand.set(brand);
+	}
+	
+	public Brand getBrand(Context context) {
+		return mBrand.get();
+	}
+}
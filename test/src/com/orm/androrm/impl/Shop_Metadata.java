@@ -0,0 +1,37 @@
+package com.orm.androrm.impl;
+
+/**
+ * Output of com.orm.androrm.processor.MetadataProcessor for {@link Shop}. The test project is 
+ * compiled without the processor, so the other models are read by reflection. 
+ */
+public final class Shop_Metadata implements com.orm.androrm.ModelMetadata<com.orm.androrm.impl.Shop> {
+
+	private static final String[] FIELDS = {
+		"mName",
+		"mBrand",
+	};
+
+	@Override
+	public Class<com.orm.androrm.impl.Shop> getModelClass() {
+		return com.orm.androrm.impl.Shop.class;
+	}
+
+	@Override
+	public String[] getFieldNames() {
+		return FIELDS.clone();
+	}
+
+	@Override
+	public Object getField(com.orm.androrm.impl.Shop instance, int index) {
+		switch(index) {
+		case 0: return instance.mName;
+		case 1: return instance.mBrand;
+		default: throw new IndexOutOfBoundsException("no field " + index);
+		}
+	}
+
+	@Override
+	public com.orm.androrm.impl.Shop newInstance() {
+		return new com.orm.androrm.impl.Shop();
+	}
+}
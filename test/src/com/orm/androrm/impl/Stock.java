@@ -0,0 +1,64 @@
+package com.orm.androrm.impl;
+
+import android.content.Context;
+
+import com.orm.androrm.BooleanField;
+import com.orm.androrm.DoubleField;
+import com.orm.androrm.ForeignKeyField;
+import com.orm.androrm.IntegerField;
+import com.orm.androrm.Model;
+import com.orm.androrm.QuerySet;
+
+public class Stock extends Model {
+
+	public static final QuerySet<Stock> objects(Context context) {
+		return TestDatabase.get().objects(Stock.class);
+	}
+
+	protected ForeignKeyField<Branch> mBranch;
+	protected IntegerField mQuantity;
+	protected DoubleField mPrice;
+	protected BooleanField mAvailable;
+
+	public Stock() {
+		super(false);
+		setAdapter(TestDatabase.get());
+
+		mBranch = new ForeignKeyField<Branch>(Branch.class, this);
+		mQuantity = new IntegerField();
+		mPrice = new DoubleField();
+		mAvailable = new BooleanField();
+	}
+
+	public void setBranch(Branch branch) {
+		mBranch.set(branch);
+	}
+
+	public Branch getBranch(Context context) {
+		return mBranch.get();
+	}
+
+	public void setQuantity(int quantity) {
+		mQuantity.setInt(quantity);
+	}
+
+	public int getQuantity() {
+		return mQuantity.getInt();
+	}
+
+	public void setPrice(double price) {
+		mPrice.setDouble(price);
+	}
+
+	public double getPrice() {
+		return mPrice.getDouble();
+	}
+
+	public void setAvailable(boolean available) {
+		mAvailable.setBoolean(available);
+	}
+
+	public boolean isAvailable() {
+		return mAvailable.getBoolean();
+	}
+}
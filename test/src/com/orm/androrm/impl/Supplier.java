@@ -18,16 +18,17 @@ public class Supplier extends Model {
 	protected ManyToManyField<Supplier, Branch> mBranches;
 	
 	public static final QuerySet<Supplier> objects(Context context) {
-		return objects(Supplier.class);
+		return TestDatabase.get().objects(Supplier.class);
 	}
 	
 	public Supplier() {
-		super();
+		super(false);
+		setAdapter(TestDatabase.get());
 		
 		mName = new CharField(50);
-		mProducts = new ManyToManyField<Supplier, Product>(Supplier.class, Product.class);
-		mBranches = new ManyToManyField<Supplier, Branch>(Supplier.class, Branch.class);
-		mBrand = new ForeignKeyField<Brand>(Brand.class);
+		mProducts = new ManyToManyField<Supplier, Product>(Supplier.class, Product.class, this);
+		mBranches = new ManyToManyField<Supplier, Branch>(Supplier.class, Branch.class, this);
+		mBrand = new ForeignKeyField<Brand>(Brand.class, this);
 		mBrand.doNotCascade();
 	}
 	
@@ -0,0 +1,41 @@
+package com.orm.androrm.impl;
+
+import java.util.Collection;
+
+import android.content.Context;
+
+import com.orm.androrm.DatabaseAdapter;
+import com.orm.androrm.Model;
+
+/**
+ * Holds the adapter of the test database. The models of this package take it in their 
+ * constructors, as an application would take its own adapter, because relations need 
+ * the adapter while they are created. 
+ */
+public class TestDatabase {
+
+	public static final String NAME = "test_db";
+	
+	private static DatabaseAdapter sAdapter;
+	
+	/**
+	 * Creates a new adapter for the test database and registers the given models. 
+	 * 
+	 * @param context	Context of the test.
+	 * @param models	Models used by the test.
+	 * @return			The new adapter.
+	 */
+	public static synchronized DatabaseAdapter open(
+			Context context, 
+			Collection<Class<? extends Model>> models) {
+		
+		sAdapter = new DatabaseAdapter(NAME, context, 1);
+		sAdapter.setModels(models);
+		
+		return sAdapter;
+	}
+	
+	public static synchronized DatabaseAdapter get() {
+		return sAdapter;
+	}
+}
@@ -5,7 +5,8 @@ import com.orm.androrm.Model;
 public class Transaction extends Model {
 
 	public Transaction() {
-		super();
+		super(false);
+		setAdapter(TestDatabase.get());
 	}
 	
 }
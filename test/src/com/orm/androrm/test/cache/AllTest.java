@@ -9,6 +9,11 @@ public class AllTest extends TestSuite {
 		TestSuite suite = new TestSuite();
 		
 		suite.addTestSuite(FieldCacheTest.class);
+		suite.addTestSuite(FieldPlanTest.class);
+		suite.addTestSuite(ModelCacheTest.class);
+		suite.addTestSuite(ModelFactoryTest.class);
+		suite.addTestSuite(RowMapperTest.class);
+		suite.addTestSuite(StatementCacheTest.class);
 		
 		return suite;
 	}
@@ -0,0 +1,100 @@
+package com.orm.androrm.test.cache;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import android.test.AndroidTestCase;
+
+import com.orm.androrm.DatabaseAdapter;
+import com.orm.androrm.FieldPlan;
+import com.orm.androrm.Model;
+import com.orm.androrm.impl.Branch;
+import com.orm.androrm.impl.Brand;
+import com.orm.androrm.impl.Outlet;
+import com.orm.androrm.impl.Product;
+import com.orm.androrm.impl.Shop;
+import com.orm.androrm.impl.Supplier;
+import com.orm.androrm.impl.TestDatabase;
+
+public class FieldPlanTest extends AndroidTestCase {
+
+	private DatabaseAdapter mAdapter;
+
+	@Override
+	public void setUp() {
+		List<Class<? extends Model>> models = new ArrayList<Class<? extends Model>>();
+		models.add(Product.class);
+		models.add(Branch.class);
+		models.add(Supplier.class);
+		models.add(Brand.class);
+		models.add(Outlet.class);
+
+		mAdapter = TestDatabase.open(getContext(), models);
+	}
+
+	private FieldPlan plan(Class<? extends Model> clazz, Model instance) {
+		return mAdapter.getModelCache().getFieldPlan(clazz, instance, mAdapter);
+	}
+
+	public void testInheritedFields() {
+		// the fields of the class itself come first, then those of its superclasses
+		assertEquals(Arrays.asList("mManager", "mFloors", "mName", "mBrand", "mId"),
+				plan(Outlet.class, new Outlet()).getNames());
+	}
+
+	public void testPlanOfSuperclass() {
+		Outlet outlet = new Outlet();
+
+		assertEquals(Arrays.asList("mName", "mBrand", "mId"), plan(Shop.class, outlet).getNames());
+		assertNotSame(plan(Outlet.class, outlet), plan(Shop.class, outlet));
+	}
+
+	public void testInheritedFieldsAreStored() {
+		Brand brand = new Brand();
+		brand.setName("Copcal");
+		brand.save();
+
+		Outlet outlet = new Outlet();
+		outlet.setName("Corner");
+		outlet.setBrand(brand);
+		outlet.setManager("Jane");
+		outlet.setFloors(3);
+		outlet.save();
+
+		Outlet loaded = mAdapter.objects(Outlet.class).get(outlet.getId());
+
+		assertEquals("Corner", loaded.getName());
+		assertEquals(brand, loaded.getBrand(getContext()));
+		assertEquals("Jane", loaded.getManager());
+		assertEquals(3, loaded.getFloors());
+	}
+
+	public void testResetAfterDelete() {
+		Brand brand = new Brand();
+		brand.setName("Copcal");
+		brand.save();
+
+		Outlet outlet = new Outlet();
+		outlet.setName("Corner");
+		outlet.setBrand(brand);
+		outlet.setManager("Jane");
+		outlet.setFloors(3);
+		outlet.save();
+
+		assertTrue(outlet.delete());
+
+		// the fields of the subclass and the inherited ones are reset
+		assertEquals(0, outlet.getId());
+		assertNull(outlet.getManager());
+		assertEquals(0, outlet.getFloors());
+		assertNull(outlet.getName());
+		assertNull(outlet.getBrand(getContext()));
+		assertEquals(0, mAdapter.objects(Outlet.class).count());
+	}
+
+	@Override
+	public void tearDown() {
+		mAdapter.drop();
+	}
+}
@@ -0,0 +1,123 @@
+package com.orm.androrm.test.cache;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import android.test.AndroidTestCase;
+
+import com.orm.androrm.DatabaseAdapter;
+import com.orm.androrm.FieldPlan;
+import com.orm.androrm.Model;
+import com.orm.androrm.ModelCache;
+import com.orm.androrm.ModelFactory;
+import com.orm.androrm.ModelField;
+import com.orm.androrm.impl.Brand;
+import com.orm.androrm.impl.TestDatabase;
+
+public class ModelCacheTest extends AndroidTestCase {
+
+	private static final int THREADS = 8;
+	private static final int ROUNDS = 20;
+
+	private DatabaseAdapter mAdapter;
+	private ModelCache mCache;
+
+	@Override
+	public void setUp() {
+		List<Class<? extends Model>> models = new ArrayList<Class<? extends Model>>();
+		models.add(Brand.class);
+
+		mAdapter = TestDatabase.open(getContext(), models);
+		mCache = mAdapter.getModelCache();
+	}
+
+	/**
+	 * Lets all threads ask the empty cache for the entries of 
+	 * {@link Brand} at the same time. 
+	 */
+	private void race(final FieldPlan[] plans, 
+			final ModelFactory<?>[] factories, 
+			final List<?>[] fields) throws InterruptedException {
+		
+		final CountDownLatch start = new CountDownLatch(1);
+		final CountDownLatch done = new CountDownLatch(THREADS);
+		final List<Throwable> errors = new ArrayList<Throwable>();
+
+		mCache.reset();
+
+		for(int i = 0; i < THREADS; i++) {
+			final int index = i;
+			final Brand instance = new Brand();
+
+			new Thread() {
+
+				@Override
+				public void run() {
+					try {
+						start.await();
+
+						plans[index] = mCache.getFieldPlan(Brand.class, instance, mAdapter);
+						factories[index] = mCache.getFactory(Brand.class);
+						fields[index] = mCache.fieldsForModel(Brand.class);
+					} catch(Throwable e) {
+						synchronized(errors) {
+							errors.add(e);
+						}
+					} finally {
+						done.countDown();
+					}
+				}
+			}.start();
+		}
+
+		start.countDown();
+		done.await();
+
+		assertTrue(errors.toString(), errors.isEmpty());
+	}
+
+	public void testConcurrentLookupsShareEntries() throws Exception {
+		for(int round = 0; round < ROUNDS; round++) {
+			FieldPlan[] plans = new FieldPlan[THREADS];
+			ModelFactory<?>[] factories = new ModelFactory<?>[THREADS];
+			List<?>[] fields = new List<?>[THREADS];
+
+			race(plans, factories, fields);
+
+			for(int i = 0; i < THREADS; i++) {
+				assertNotNull(plans[i]);
+				assertSame(plans[0], plans[i]);
+				assertSame(factories[0], factories[i]);
+				assertSame(fields[0], fields[i]);
+			}
+
+			// the published entries are the cached ones
+			assertSame(plans[0], mCache.getFieldPlan(Brand.class, new Brand(), mAdapter));
+			assertSame(factories[0], mCache.getFactory(Brand.class));
+		}
+	}
+
+	public void testFieldsArePublishedOnce() throws InterruptedException {
+		FieldPlan[] plans = new FieldPlan[THREADS];
+		ModelFactory<?>[] factories = new ModelFactory<?>[THREADS];
+		List<?>[] fields = new List<?>[THREADS];
+
+		race(plans, factories, fields);
+
+		List<String> names = new ArrayList<String>();
+
+		for(Object field : fields[0]) {
+			names.add(((ModelField) field).getName());
+		}
+
+		assertEquals(2, names.size());
+		assertTrue(names.contains("mName"));
+		assertTrue(names.contains("mBranches"));
+	}
+
+	@Override
+	public void tearDown() {
+		mAdapter.drop();
+	}
+}
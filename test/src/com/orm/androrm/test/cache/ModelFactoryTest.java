@@ -0,0 +1,131 @@
+package com.orm.androrm.test.cache;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import android.test.AndroidTestCase;
+
+import com.orm.androrm.DatabaseAdapter;
+import com.orm.androrm.Filter;
+import com.orm.androrm.Model;
+import com.orm.androrm.ModelConsumer;
+import com.orm.androrm.ModelFactory;
+import com.orm.androrm.QueryIterator;
+import com.orm.androrm.impl.Branch;
+import com.orm.androrm.impl.Brand;
+import com.orm.androrm.impl.Product;
+import com.orm.androrm.impl.Supplier;
+import com.orm.androrm.impl.TestDatabase;
+
+public class ModelFactoryTest extends AndroidTestCase {
+
+	private DatabaseAdapter mAdapter;
+	private ModelFactory<Brand> mFactory;
+	private Brand mPrototype;
+
+	@Override
+	public void setUp() throws Exception {
+		List<Class<? extends Model>> models = new ArrayList<Class<? extends Model>>();
+		models.add(Product.class);
+		models.add(Branch.class);
+		models.add(Supplier.class);
+		models.add(Brand.class);
+
+		mAdapter = TestDatabase.open(getContext(), models);
+
+		Brand brand = new Brand();
+		brand.setName("Copcal");
+		brand.save();
+
+		Branch branch = new Branch();
+		branch.setName("Pretoria");
+		branch.setBrand(brand);
+		branch.save();
+
+		mFactory = mAdapter.getModelCache().getFactory(Brand.class);
+		mPrototype = mFactory.getPrototype(mAdapter);
+	}
+
+	private void assertUnchanged() throws Exception {
+		assertSame(mPrototype, mFactory.getPrototype(mAdapter));
+		assertEquals(0, mPrototype.getId());
+		assertNull(mPrototype.getName());
+	}
+
+	public void testPrototypeIsShared() throws Exception {
+		assertSame(mPrototype, mFactory.getPrototype(mAdapter));
+		assertNotSame(mPrototype, mFactory.newInstance(mAdapter));
+		assertSame(mAdapter, mPrototype.getAdapter());
+	}
+
+	public void testList() throws Exception {
+		List<Brand> brands = Brand.objects(getContext()).all().toList();
+
+		assertEquals(1, brands.size());
+		assertNotSame(mPrototype, brands.get(0));
+		assertEquals("Copcal", brands.get(0).getName());
+		assertUnchanged();
+	}
+
+	public void testGet() throws Exception {
+		Brand brand = Brand.objects(getContext()).get(1);
+
+		assertNotSame(mPrototype, brand);
+		assertEquals("Copcal", brand.getName());
+		assertUnchanged();
+	}
+
+	public void testIterate() throws Exception {
+		QueryIterator<Brand> it = Brand.objects(getContext()).all().iterate();
+
+		try {
+			assertTrue(it.hasNext());
+			assertNotSame(mPrototype, it.next());
+		} finally {
+			it.close();
+		}
+
+		assertUnchanged();
+	}
+
+	public void testForEachReusing() throws Exception {
+		final List<Brand> seen = new ArrayList<Brand>();
+
+		Brand.objects(getContext()).all().forEachReusing(new ModelConsumer<Brand>() {
+
+			@Override
+			public void accept(Brand model) {
+				assertEquals("Copcal", model.getName());
+				seen.add(model);
+			}
+		});
+
+		assertEquals(1, seen.size());
+		assertNotSame(mPrototype, seen.get(0));
+		assertUnchanged();
+	}
+
+	public void testColumns() throws Exception {
+		assertEquals(1, Brand.objects(getContext()).all().intColumn("mId").length);
+		assertEquals("Copcal", Brand.objects(getContext()).all().valuesList("mName").get(0)[0]);
+		assertUnchanged();
+	}
+
+	public void testRelationFilters() throws Exception {
+		Filter filter = new Filter();
+		filter.is("mBranches__mName", "Pretoria");
+
+		assertEquals(1, Brand.objects(getContext()).filter(filter).count());
+
+		filter = new Filter();
+		filter.is("mBrand__mName", "Copcal");
+
+		assertEquals(1, Branch.objects(getContext()).filter(filter).count());
+		assertUnchanged();
+	}
+
+	@Override
+	public void tearDown() {
+		mAdapter.drop();
+	}
+}
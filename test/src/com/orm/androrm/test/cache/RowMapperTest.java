@@ -0,0 +1,122 @@
+package com.orm.androrm.test.cache;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import android.database.Cursor;
+import android.test.AndroidTestCase;
+
+import com.orm.androrm.DatabaseAdapter;
+import com.orm.androrm.Model;
+import com.orm.androrm.ModelCache;
+import com.orm.androrm.RowMapper;
+import com.orm.androrm.impl.BlankModel;
+import com.orm.androrm.impl.Brand;
+import com.orm.androrm.impl.TestDatabase;
+
+public class RowMapperTest extends AndroidTestCase {
+
+	private DatabaseAdapter mAdapter;
+	private ModelCache mCache;
+	private List<Cursor> mCursors;
+
+	@Override
+	public void setUp() {
+		List<Class<? extends Model>> models = new ArrayList<Class<? extends Model>>();
+		models.add(Brand.class);
+
+		mAdapter = TestDatabase.open(getContext(), models);
+		mCache = mAdapter.getModelCache();
+		mCursors = new ArrayList<Cursor>();
+
+		Brand brand = new Brand();
+		brand.setName("Copcal");
+		brand.save();
+
+		mAdapter.open();
+	}
+
+	private Cursor query(String sql) {
+		Cursor c = mAdapter.query(sql);
+		mCursors.add(c);
+
+		assertTrue(c.moveToNext());
+
+		return c;
+	}
+
+	public void testSameLayoutSharesMapper() {
+		Brand brand = new Brand();
+
+		RowMapper<Brand> first = mCache.getRowMapper(Brand.class, query("SELECT * FROM `brand`"), brand, mAdapter);
+		RowMapper<Brand> second = mCache.getRowMapper(Brand.class, query("SELECT * FROM `brand`"), brand, mAdapter);
+
+		assertSame(first, second);
+	}
+
+	public void testLayoutsGetOwnMappers() throws IllegalAccessException {
+		Cursor all = query("SELECT * FROM `brand`");
+		Cursor reordered = query("SELECT mName, mId FROM `brand`");
+		Brand brand = new Brand();
+
+		RowMapper<Brand> allMapper = mCache.getRowMapper(Brand.class, all, brand, mAdapter);
+		RowMapper<Brand> reorderedMapper = mCache.getRowMapper(Brand.class, reordered, brand, mAdapter);
+
+		assertNotSame(allMapper, reorderedMapper);
+
+		// each mapper reads the columns of its own layout
+		Brand fromAll = new Brand();
+		allMapper.map(fromAll, all);
+
+		Brand fromReordered = new Brand();
+		reorderedMapper.map(fromReordered, reordered);
+
+		assertEquals("Copcal", fromAll.getName());
+		assertEquals("Copcal", fromReordered.getName());
+		assertEquals(fromAll.getId(), fromReordered.getId());
+		assertTrue(fromAll.getId() != 0);
+	}
+
+	public void testClassesGetOwnMappers() {
+		Cursor c = query("SELECT * FROM `brand`");
+
+		RowMapper<Brand> brands = mCache.getRowMapper(Brand.class, c, new Brand(), mAdapter);
+		RowMapper<BlankModel> blanks = mCache.getRowMapper(BlankModel.class, c, new BlankModel(), mAdapter);
+
+		assertNotSame(brands, blanks);
+	}
+
+	public void testFieldInSeveralColumns() throws IllegalAccessException {
+		// the location is stored in mLocationLat and mLocationLng, so it is read by its name
+		Cursor c = query("SELECT 7 AS mId, 'Home' AS mName, 1.5 AS mLocationLat, "
+				+ "2.5 AS mLocationLng, '2012-05-04T03:02:01' AS mDate");
+
+		BlankModel model = new BlankModel();
+		mCache.getRowMapper(BlankModel.class, c, model, mAdapter).map(model, c);
+
+		assertEquals(7, model.getId());
+		assertEquals("Home", model.getName());
+		assertEquals(1.5, model.getLocation().getLatitude());
+		assertEquals(2.5, model.getLocation().getLongitude());
+		assertNotNull(model.getDate());
+	}
+
+	public void testResetDropsMappers() {
+		Cursor c = query("SELECT * FROM `brand`");
+		RowMapper<Brand> mapper = mCache.getRowMapper(Brand.class, c, new Brand(), mAdapter);
+
+		mCache.reset();
+
+		assertNotSame(mapper, mCache.getRowMapper(Brand.class, c, new Brand(), mAdapter));
+	}
+
+	@Override
+	public void tearDown() {
+		for(Cursor c : mCursors) {
+			c.close();
+		}
+
+		mAdapter.close();
+		mAdapter.drop();
+	}
+}
@@ -0,0 +1,165 @@
+package com.orm.androrm.test.cache;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
+import android.test.AndroidTestCase;
+
+import com.orm.androrm.DatabaseAdapter;
+import com.orm.androrm.Model;
+import com.orm.androrm.StatementCache;
+import com.orm.androrm.impl.Brand;
+import com.orm.androrm.impl.TestDatabase;
+
+public class StatementCacheTest extends AndroidTestCase {
+
+	private static final String A = "SELECT 1";
+	private static final String B = "SELECT 2";
+	private static final String C = "SELECT 3";
+
+	private SQLiteDatabase mDb;
+	private DatabaseAdapter mAdapter;
+
+	@Override
+	public void setUp() {
+		mDb = SQLiteDatabase.create(null);
+
+		List<Class<? extends Model>> models = new ArrayList<Class<? extends Model>>();
+		models.add(Brand.class);
+
+		mAdapter = TestDatabase.open(getContext(), models);
+	}
+
+	public void testLeastRecentlyUsedIsEvicted() {
+		StatementCache cache = new StatementCache(2);
+
+		SQLiteStatement a = cache.get(mDb, A);
+		SQLiteStatement b = cache.get(mDb, B);
+
+		// using A makes B the least recently used statement
+		assertSame(a, cache.get(mDb, A));
+
+		cache.get(mDb, C);
+
+		assertEquals(2, cache.size());
+		assertSame(a, cache.get(mDb, A));
+		assertNotSame(b, cache.get(mDb, B));
+	}
+
+	public void testShrink() {
+		StatementCache cache = new StatementCache(3);
+
+		SQLiteStatement a = cache.get(mDb, A);
+		cache.get(mDb, B);
+		cache.get(mDb, C);
+		cache.get(mDb, A);
+
+		cache.setMaxSize(1);
+
+		// only the most recently used statement is kept
+		assertEquals(1, cache.size());
+		assertSame(a, cache.get(mDb, A));
+		assertEquals(3, cache.getMissCount());
+		assertEquals(2, cache.getHitCount());
+	}
+
+	public void testCounters() {
+		StatementCache cache = new StatementCache(2);
+
+		assertEquals(0.0, cache.getHitRate());
+
+		cache.get(mDb, A);
+		cache.get(mDb, A);
+		cache.get(mDb, A);
+		cache.get(mDb, B);
+
+		assertEquals(2, cache.getMissCount());
+		assertEquals(2, cache.getHitCount());
+		assertEquals(0.5, cache.getHitRate());
+
+		// clearing keeps the counters, resetting them keeps the statements
+		cache.clear();
+
+		assertEquals(0, cache.size());
+		assertEquals(2, cache.getHitCount());
+
+		cache.get(mDb, A);
+		cache.resetCounters();
+
+		assertEquals(1, cache.size());
+		assertEquals(0, cache.getHitCount());
+		assertEquals(0, cache.getMissCount());
+	}
+
+	private void save() {
+		Brand brand = new Brand();
+		brand.setName("Copcal");
+		brand.save();
+	}
+
+	public void testClearedOnClose() {
+		StatementCache cache = mAdapter.getStatementCache();
+
+		mAdapter.open();
+
+		try {
+			save();
+
+			assertTrue(cache.size() > 0);
+		} finally {
+			mAdapter.close();
+		}
+
+		assertEquals(0, cache.size());
+	}
+
+	public void testKeptByPersistentConnection() {
+		StatementCache cache = mAdapter.getStatementCache();
+		mAdapter.setPersistentConnection(true, 60000);
+
+		save();
+		int size = cache.size();
+
+		cache.resetCounters();
+		save();
+
+		assertTrue(size > 0);
+		assertEquals(size, cache.size());
+		assertEquals(0, cache.getMissCount());
+	}
+
+	public void testClearedOnDrop() {
+		StatementCache cache = mAdapter.getStatementCache();
+		mAdapter.setPersistentConnection(true, 60000);
+
+		save();
+
+		assertTrue(cache.size() > 0);
+
+		mAdapter.drop();
+
+		assertEquals(0, cache.size());
+	}
+
+	public void testClearedOnUpgrade() {
+		StatementCache cache = mAdapter.getStatementCache();
+		mAdapter.setPersistentConnection(true, 60000);
+
+		save();
+
+		assertTrue(cache.size() > 0);
+
+		mAdapter.onUpgrade(mDb, 1, 2);
+
+		assertEquals(0, cache.size());
+	}
+
+	@Override
+	public void tearDown() {
+		mDb.close();
+		mAdapter.setPersistentConnection(false, 0);
+		mAdapter.drop();
+	}
+}
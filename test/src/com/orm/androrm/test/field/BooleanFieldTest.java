@@ -19,4 +19,18 @@ public class BooleanFieldTest extends AndroidTestCase {
 		
 		assertTrue(b.get());
 	}
+	
+	public void testPrimitive() {
+		BooleanField b = new BooleanField();
+		
+		b.setBoolean(true);
+		
+		assertTrue(b.getBoolean());
+		assertTrue(b.get());
+		
+		b.set((Boolean) null);
+		
+		assertNull(b.get());
+		assertFalse(b.getBoolean());
+	}
 }
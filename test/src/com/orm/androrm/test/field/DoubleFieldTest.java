@@ -31,4 +31,19 @@ public class DoubleFieldTest extends AndroidTestCase {
 		
 		assertEquals(27.12345, d.get());
 	}
+	
+	public void testPrimitive() {
+		DoubleField d = new DoubleField(10);
+		
+		assertEquals(0.0, d.get());
+		
+		d.setDouble(1.5);
+		
+		assertEquals(1.5, d.getDouble(), 0.0);
+		assertEquals(1.5, d.get());
+		
+		d.set((Double) null);
+		
+		assertNull(d.get());
+	}
 }
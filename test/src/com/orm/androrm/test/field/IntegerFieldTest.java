@@ -31,4 +31,22 @@ public class IntegerFieldTest extends AndroidTestCase {
 		
 		assertTrue(123 == i.get());
 	}
+	
+	public void testPrimitive() {
+		IntegerField i = new IntegerField();
+		
+		i.setInt(42);
+		
+		assertEquals(42, i.getInt());
+		assertEquals(Integer.valueOf(42), i.get());
+		
+		i.set((Integer) null);
+		
+		assertNull(i.get());
+		assertEquals(0, i.getInt());
+		
+		i.reset();
+		
+		assertEquals(Integer.valueOf(0), i.get());
+	}
 }
@@ -7,9 +7,20 @@ public class AllTest extends TestSuite {
 	public static Test suite() {
 		TestSuite suite = new TestSuite();
 		
+		suite.addTestSuite(AsyncTest.class);
+		suite.addTestSuite(BulkCreateTest.class);
+		suite.addTestSuite(ConnectionTest.class);
 		suite.addTestSuite(FieldResulutionTest.class);
+		suite.addTestSuite(LockStatsTest.class);
+		suite.addTestSuite(MetadataTest.class);
 		suite.addTestSuite(QuerySetTest.class);
 		suite.addTestSuite(FilterTest.class);
+		suite.addTestSuite(QueryBuilderTest.class);
+		suite.addTestSuite(SlowQueryTest.class);
+		suite.addTestSuite(TransactionTest.class);
+		suite.addTestSuite(UpsertTest.class);
+		suite.addTestSuite(WriteAheadLoggingTest.class);
+		suite.addTestSuite(WriteBehindTest.class);
 		
 		return suite;
 	}
@@ -0,0 +1,143 @@
+package com.orm.androrm.test.implementation;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import android.test.AndroidTestCase;
+
+import com.orm.androrm.DatabaseAdapter;
+import com.orm.androrm.Filter;
+import com.orm.androrm.Model;
+import com.orm.androrm.QuerySet;
+import com.orm.androrm.impl.Brand;
+import com.orm.androrm.impl.TestDatabase;
+
+public class AsyncTest extends AndroidTestCase {
+
+	private DatabaseAdapter mAdapter;
+
+	@Override
+	public void setUp() {
+		List<Class<? extends Model>> models = new ArrayList<Class<? extends Model>>();
+		models.add(Brand.class);
+
+		mAdapter = TestDatabase.open(getContext(), models);
+
+		create("Plumblink");
+		create("Copcal");
+		create("Cashbuild");
+	}
+
+	private static Brand create(String name) {
+		Brand brand = new Brand();
+		brand.setName(name);
+		brand.save();
+
+		return brand;
+	}
+
+	private static <V> V await(Future<V> future) throws Exception {
+		return future.get(5, TimeUnit.SECONDS);
+	}
+
+	public void testFetchAsync() throws Exception {
+		List<Brand> brands = await(Brand.objects(getContext()).all().orderBy("mName").fetchAsync());
+
+		assertEquals(3, brands.size());
+		assertEquals("Cashbuild", brands.get(0).getName());
+		assertEquals("Copcal", brands.get(1).getName());
+		assertEquals("Plumblink", brands.get(2).getName());
+	}
+
+	public void testFetchAsyncDoesNotCache() throws Exception {
+		QuerySet<Brand> brands = Brand.objects(getContext()).all();
+
+		assertEquals(3, await(brands.fetchAsync()).size());
+
+		create("Builders");
+
+		// the query set has not kept the result of the reader thread
+		assertEquals(4, brands.toList().size());
+	}
+
+	public void testFetchAsyncTakesQuery() throws Exception {
+		QuerySet<Brand> brands = Brand.objects(getContext()).all();
+		Future<List<Brand>> all = brands.fetchAsync();
+
+		Filter filter = new Filter();
+		filter.is("mName", "Copcal");
+		brands.filter(filter);
+
+		assertEquals(3, await(all).size());
+		assertEquals(1, brands.toList().size());
+	}
+
+	public void testFetchAsyncWithoutQuery() throws Exception {
+		assertTrue(await(Brand.objects(getContext()).fetchAsync()).isEmpty());
+	}
+
+	public void testCountAsync() throws Exception {
+		Filter filter = new Filter();
+		filter.contains("mName", "p");
+
+		assertEquals(2, (int) await(Brand.objects(getContext()).filter(filter).countAsync()));
+
+		// counts the whole table without touching the query set
+		QuerySet<Brand> brands = Brand.objects(getContext());
+
+		assertEquals(3, (int) await(brands.countAsync()));
+		assertNull(brands.getQuery());
+	}
+
+	public void testSaveAsyncKeepsOrder() throws Exception {
+		List<Brand> brands = new ArrayList<Brand>();
+		List<Future<Boolean>> saves = new ArrayList<Future<Boolean>>();
+
+		for(int i = 0; i < 10; i++) {
+			Brand brand = new Brand();
+			brand.setName("Brand " + i);
+			brands.add(brand);
+			saves.add(brand.saveAsync());
+		}
+
+		for(Future<Boolean> save : saves) {
+			assertTrue(await(save));
+		}
+
+		// the rows have been inserted in the order the saves were submitted
+		for(int i = 1; i < brands.size(); i++) {
+			assertTrue(brands.get(i - 1).getId() < brands.get(i).getId());
+		}
+
+		assertEquals(13, Brand.objects(getContext()).all().count());
+	}
+
+	public void testSaveThenDeleteAsync() throws Exception {
+		Brand brand = create("Builders");
+		brand.setName("Buildit");
+
+		Future<Boolean> save = brand.saveAsync();
+		Future<Boolean> delete = brand.deleteAsync();
+
+		assertTrue(await(save));
+		assertTrue(await(delete));
+		assertEquals(0, brand.getId());
+		assertEquals(3, Brand.objects(getContext()).all().count());
+	}
+
+	public void testDeleteAsync() throws Exception {
+		Brand brand = create("Builders");
+		int id = brand.getId();
+
+		assertTrue(await(brand.deleteAsync()));
+		assertNull(Brand.objects(getContext()).get(id));
+		assertFalse(await(brand.deleteAsync()));
+	}
+
+	@Override
+	public void tearDown() {
+		mAdapter.drop();
+	}
+}
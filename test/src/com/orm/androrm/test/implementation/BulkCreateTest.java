@@ -0,0 +1,165 @@
+package com.orm.androrm.test.implementation;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import android.content.ContentValues;
+import android.database.SQLException;
+import android.test.AndroidTestCase;
+
+import com.orm.androrm.DatabaseAdapter;
+import com.orm.androrm.Model;
+import com.orm.androrm.StatementCache;
+import com.orm.androrm.impl.BlankModelNoAutoincrement;
+import com.orm.androrm.impl.Branch;
+import com.orm.androrm.impl.Brand;
+import com.orm.androrm.impl.EmptyModel;
+import com.orm.androrm.impl.Product;
+import com.orm.androrm.impl.Supplier;
+import com.orm.androrm.impl.TestDatabase;
+
+public class BulkCreateTest extends AndroidTestCase {
+
+	private DatabaseAdapter mAdapter;
+
+	@Override
+	public void setUp() {
+		List<Class<? extends Model>> models = new ArrayList<Class<? extends Model>>();
+		models.add(Product.class);
+		models.add(Branch.class);
+		models.add(Supplier.class);
+		models.add(Brand.class);
+		models.add(EmptyModel.class);
+		models.add(BlankModelNoAutoincrement.class);
+
+		mAdapter = TestDatabase.open(getContext(), models);
+	}
+
+	private static Brand brand(String name) {
+		Brand brand = new Brand();
+		brand.setName(name);
+
+		return brand;
+	}
+
+	private static Product product(String name) {
+		Product product = new Product();
+		product.setName(name);
+
+		return product;
+	}
+
+	public void testIds() {
+		List<Brand> brands = new ArrayList<Brand>();
+		brands.add(brand("Copcal"));
+		brands.add(brand("Cashbuild"));
+		brands.add(brand("Plumblink"));
+
+		assertEquals(3, mAdapter.bulkCreate(brands));
+
+		for(Brand brand : brands) {
+			assertTrue(brand.getId() != 0);
+			assertEquals(brand.getName(), Brand.objects(getContext()).get(brand.getId()).getName());
+		}
+
+		assertTrue(brands.get(0).getId() != brands.get(1).getId());
+		assertTrue(brands.get(1).getId() != brands.get(2).getId());
+	}
+
+	public void testMixedClasses() {
+		List<Model> models = new ArrayList<Model>();
+		models.add(brand("Copcal"));
+		models.add(product("Pipe"));
+		models.add(brand("Cashbuild"));
+		models.add(product("Tap"));
+
+		StatementCache cache = mAdapter.getStatementCache();
+		cache.resetCounters();
+
+		assertEquals(4, mAdapter.bulkCreate(models));
+
+		// one INSERT is compiled per class and reused for its other instances
+		assertEquals(2, cache.getMissCount());
+		assertEquals(2, cache.getHitCount());
+
+		assertEquals(2, Brand.objects(getContext()).all().count());
+		assertEquals(2, Product.objects(getContext()).all().count());
+		assertEquals("Tap", Product.objects(getContext()).get(models.get(3).getId()).getName());
+		assertEquals("Cashbuild", Brand.objects(getContext()).get(models.get(2).getId()).getName());
+	}
+
+	public void testEmptyRows() {
+		List<Model> models = new ArrayList<Model>();
+		models.add(new EmptyModel());
+		models.add(new EmptyModel());
+		models.add(new Brand());
+
+		assertEquals(3, mAdapter.bulkCreate(models));
+
+		for(Model model : models) {
+			assertTrue(model.getId() != 0);
+		}
+
+		assertEquals(2, mAdapter.objects(EmptyModel.class).all().count());
+		assertNull(Brand.objects(getContext()).get(models.get(2).getId()).getName());
+	}
+
+	public void testWithoutAutoincrement() {
+		BlankModelNoAutoincrement withId = new BlankModelNoAutoincrement();
+		withId.setId(5);
+
+		List<Model> models = new ArrayList<Model>();
+		models.add(new BlankModelNoAutoincrement());
+		models.add(withId);
+
+		assertEquals(1, mAdapter.bulkCreate(models));
+		assertEquals(5, withId.getId());
+		assertNotNull(mAdapter.objects(BlankModelNoAutoincrement.class).get(5));
+		assertEquals(1, mAdapter.objects(BlankModelNoAutoincrement.class).all().count());
+	}
+
+	public void testSkipsSavedModels() {
+		Brand saved = brand("Copcal");
+		saved.save();
+
+		int id = saved.getId();
+		saved.setName("Cashbuild");
+
+		List<Brand> brands = new ArrayList<Brand>();
+		brands.add(saved);
+		brands.add(brand("Plumblink"));
+
+		assertEquals(1, mAdapter.bulkCreate(brands));
+		assertEquals(id, saved.getId());
+		assertEquals(2, Brand.objects(getContext()).all().count());
+		assertEquals("Copcal", Brand.objects(getContext()).get(id).getName());
+	}
+
+	public void testRowIdOutOfRange() {
+		ContentValues values = new ContentValues();
+		values.put(Model.PK, Integer.MAX_VALUE);
+		mAdapter.upsert(mAdapter.getTableName(Brand.class), values, Integer.MAX_VALUE);
+
+		// the next row ids are past Integer.MAX_VALUE
+		List<Brand> brands = new ArrayList<Brand>();
+		brands.add(brand("Copcal"));
+		brands.add(brand("Cashbuild"));
+
+		try {
+			mAdapter.bulkCreate(brands);
+
+			fail();
+		} catch(SQLException e) {
+
+		}
+
+		assertEquals(0, brands.get(0).getId());
+		assertEquals(0, brands.get(1).getId());
+		assertEquals(1, Brand.objects(getContext()).all().count());
+	}
+
+	@Override
+	public void tearDown() {
+		mAdapter.drop();
+	}
+}
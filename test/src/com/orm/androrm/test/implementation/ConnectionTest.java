@@ -0,0 +1,114 @@
+package com.orm.androrm.test.implementation;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import android.test.AndroidTestCase;
+
+import com.orm.androrm.DatabaseAdapter;
+import com.orm.androrm.Model;
+import com.orm.androrm.impl.Brand;
+import com.orm.androrm.impl.TestDatabase;
+
+public class ConnectionTest extends AndroidTestCase {
+
+	private DatabaseAdapter mAdapter;
+
+	@Override
+	public void setUp() {
+		List<Class<? extends Model>> models = new ArrayList<Class<? extends Model>>();
+		models.add(Brand.class);
+
+		mAdapter = TestDatabase.open(getContext(), models);
+	}
+
+	private boolean awaitClosed(long timeout) throws InterruptedException {
+		long end = System.currentTimeMillis() + timeout;
+
+		while(mAdapter.isOpen()) {
+			if(System.currentTimeMillis() > end) {
+				return false;
+			}
+
+			Thread.sleep(10);
+		}
+
+		return true;
+	}
+
+	public void testNestedOpenClose() {
+		assertFalse(mAdapter.isOpen());
+
+		mAdapter.open();
+		mAdapter.open();
+		mAdapter.close();
+
+		// only the outermost close releases the connection
+		assertTrue(mAdapter.isOpen());
+
+		mAdapter.close();
+
+		assertFalse(mAdapter.isOpen());
+	}
+
+	public void testPersistentConnection() {
+		mAdapter.setPersistentConnection(true, 60000);
+
+		assertEquals(0, Brand.objects(getContext()).all().count());
+		assertTrue(mAdapter.isOpen());
+
+		mAdapter.open();
+		mAdapter.close();
+
+		assertTrue(mAdapter.isOpen());
+	}
+
+	public void testIdleClose() throws InterruptedException {
+		mAdapter.setPersistentConnection(true, 50);
+
+		Brand brand = new Brand();
+		brand.setName("Copcal");
+		brand.save();
+
+		assertTrue(awaitClosed(5000));
+
+		// the next operation opens the connection again
+		assertEquals("Copcal", Brand.objects(getContext()).get(brand.getId()).getName());
+		assertTrue(mAdapter.isOpen());
+		assertTrue(awaitClosed(5000));
+	}
+
+	public void testNoIdleCloseWhileOpen() throws InterruptedException {
+		mAdapter.setPersistentConnection(true, 10);
+		mAdapter.open();
+
+		try {
+			Thread.sleep(100);
+
+			assertTrue(mAdapter.isOpen());
+		} finally {
+			mAdapter.close();
+		}
+
+		assertTrue(awaitClosed(5000));
+	}
+
+	public void testLeavePersistentMode() {
+		mAdapter.setPersistentConnection(true, 60000);
+		mAdapter.open();
+		mAdapter.close();
+
+		assertTrue(mAdapter.isOpen());
+
+		mAdapter.setPersistentConnection(false, 0);
+
+		assertFalse(mAdapter.isPersistentConnection());
+		assertFalse(mAdapter.isOpen());
+	}
+
+	@Override
+	public void tearDown() {
+		mAdapter.setPersistentConnection(false, 0);
+		mAdapter.drop();
+	}
+}
@@ -13,9 +13,11 @@ import com.orm.androrm.impl.Branch;
 import com.orm.androrm.impl.Brand;
 import com.orm.androrm.impl.Product;
 import com.orm.androrm.impl.Supplier;
+import com.orm.androrm.impl.TestDatabase;
 
 public class FieldResulutionTest extends AndroidTestCase {
 
+	private DatabaseAdapter mAdapter;
 	private Brand mB;
 	private Branch mB1, mB2, mB3;
 	private Product mP1;
@@ -29,10 +31,7 @@ public class FieldResulutionTest extends AndroidTestCase {
 		models.add(Supplier.class);
 		models.add(Brand.class);
 		
-		DatabaseAdapter.setDatabaseName("test_db");
-		
-		DatabaseAdapter adapter = new DatabaseAdapter();
-		adapter.setModels(models);
+		mAdapter = TestDatabase.open(getContext(), models);
 		
 		Brand b = new Brand();
 		b.setName("Copcal");
@@ -240,9 +239,21 @@ public class FieldResulutionTest extends AndroidTestCase {
 		assertEquals(0, products.count());
 	}
 	
+	public void testOneToManyResolutionEndingInRelation() {
+		List<Branch> branches = new ArrayList<Branch>();
+		branches.add(mB3);
+		
+		Filter filter = new Filter();
+		filter.in("mBranches", branches);
+		
+		QuerySet<Brand> brands = Brand.objects(getContext()).filter(filter);
+		
+		assertEquals(1, brands.count());
+		assertTrue(brands.contains(mB));
+	}
+	
 	@Override
 	public void tearDown() {
-		DatabaseAdapter adapter = new DatabaseAdapter();
-		adapter.drop();
+		mAdapter.drop();
 	}
 }
@@ -13,17 +13,19 @@ import com.orm.androrm.QuerySet;
 import com.orm.androrm.impl.Brand;
 import com.orm.androrm.impl.Car;
 import com.orm.androrm.impl.Person;
+import com.orm.androrm.impl.TestDatabase;
 
 public class FilterTest extends AndroidTestCase {
 
+	private DatabaseAdapter mAdapter;
+	
 	public void setUp() {
 		List<Class<? extends Model>> models = new ArrayList<Class<? extends Model>>();
 		models.add(Brand.class);
 		models.add(Person.class);
 		models.add(Car.class);
 		
-		DatabaseAdapter adapter = new DatabaseAdapter();
-		adapter.setModels(models);
+		mAdapter = TestDatabase.open(getContext(), models);
 	}
 	
 	public void testNoSuchFieldException() {
@@ -86,7 +88,6 @@ public class FilterTest extends AndroidTestCase {
 	}
 	
 	public void tearDown() {
-		DatabaseAdapter adapter = new DatabaseAdapter();
-		adapter.drop();
+		mAdapter.drop();
 	}
 }
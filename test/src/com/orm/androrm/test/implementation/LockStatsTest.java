@@ -0,0 +1,208 @@
+package com.orm.androrm.test.implementation;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import android.test.AndroidTestCase;
+
+import com.orm.androrm.DatabaseAdapter;
+import com.orm.androrm.LockStats;
+import com.orm.androrm.LockStats.Operation;
+import com.orm.androrm.Model;
+import com.orm.androrm.TransactionCallback;
+import com.orm.androrm.impl.Brand;
+import com.orm.androrm.impl.TestDatabase;
+
+public class LockStatsTest extends AndroidTestCase {
+
+	private DatabaseAdapter mAdapter;
+
+	@Override
+	public void setUp() {
+		List<Class<? extends Model>> models = new ArrayList<Class<? extends Model>>();
+		models.add(Brand.class);
+
+		mAdapter = TestDatabase.open(getContext(), models);
+	}
+
+	private static Brand create(String name) {
+		Brand brand = new Brand();
+		brand.setName(name);
+		brand.save();
+
+		return brand;
+	}
+
+	private static long count(LockStats stats) {
+		long count = 0;
+
+		for(Operation op : Operation.values()) {
+			count += stats.getCount(op);
+		}
+
+		return count;
+	}
+
+	private static long sum(long[] histogram) {
+		long sum = 0;
+
+		for(long value : histogram) {
+			sum += value;
+		}
+
+		return sum;
+	}
+
+	private static void awaitWaiting(Thread thread) throws InterruptedException {
+		long end = System.currentTimeMillis() + 5000;
+
+		while(thread.getState() != Thread.State.WAITING) {
+			assertTrue(System.currentTimeMillis() < end);
+
+			Thread.sleep(5);
+		}
+	}
+
+	public void testDisabled() {
+		assertFalse(mAdapter.isLockInstrumentation());
+
+		create("Copcal");
+
+		assertEquals(0, count(mAdapter.getLockStats()));
+	}
+
+	public void testOperations() {
+		mAdapter.setLockInstrumentation(true);
+		mAdapter.resetLockStats();
+
+		Brand brand = create("Copcal");
+		Brand.objects(getContext()).all().toList();
+		Brand.objects(getContext()).all().count();
+		brand.delete();
+
+		LockStats stats = mAdapter.getLockStats();
+
+		assertEquals(1, stats.getCount(Operation.SAVE));
+		assertEquals(1, stats.getCount(Operation.FETCH));
+		assertEquals(1, stats.getCount(Operation.COUNT));
+		assertEquals(1, stats.getCount(Operation.DELETE));
+		assertEquals(4, count(stats));
+
+		for(Operation op : Operation.values()) {
+			assertEquals(stats.getCount(op), sum(stats.getWaitHistogram(op)));
+			assertEquals(stats.getCount(op), sum(stats.getHoldHistogram(op)));
+			assertTrue(stats.getMaxHoldTime(op) <= stats.getHoldTime(op));
+		}
+
+		assertTrue(stats.getHoldTime(Operation.SAVE) > 0);
+		assertEquals(0, stats.getMaxQueueLength());
+		assertEquals(0.0, stats.getAverageQueueLength());
+	}
+
+	public void testNested() {
+		mAdapter.setLockInstrumentation(true);
+		mAdapter.resetLockStats();
+
+		mAdapter.runInTransaction(new TransactionCallback<Void>() {
+
+			@Override
+			public Void run(DatabaseAdapter adapter) {
+				create("Copcal");
+				Brand.objects(getContext()).all().count();
+
+				try {
+					Thread.sleep(20);
+				} catch(InterruptedException e) {
+
+				}
+
+				return null;
+			}
+		});
+
+		LockStats stats = mAdapter.getLockStats();
+
+		// only the outermost acquisition is measured, but it is held for all nested ones
+		assertEquals(1, count(stats));
+		assertEquals(1, stats.getCount(Operation.OTHER));
+		assertEquals(1, sum(stats.getHoldHistogram(Operation.OTHER)));
+		assertTrue(stats.getHoldTime(Operation.OTHER) >= 20000000L);
+		assertEquals(0, stats.getHoldTime(Operation.SAVE));
+		assertEquals(0, stats.getHoldTime(Operation.COUNT));
+
+		// the depth is back to 0, so the next save is measured on its own
+		create("Cashbuild");
+
+		assertEquals(1, mAdapter.getLockStats().getCount(Operation.SAVE));
+	}
+
+	public void testEnabledWhileHeld() {
+		mAdapter.open();
+		mAdapter.setLockInstrumentation(true);
+		mAdapter.resetLockStats();
+		mAdapter.close();
+
+		assertEquals(0, count(mAdapter.getLockStats()));
+
+		create("Copcal");
+
+		LockStats stats = mAdapter.getLockStats();
+
+		assertEquals(1, count(stats));
+		assertEquals(1, sum(stats.getHoldHistogram(Operation.SAVE)));
+	}
+
+	public void testContention() throws InterruptedException {
+		mAdapter.setLockInstrumentation(true);
+		mAdapter.resetLockStats();
+
+		mAdapter.open();
+
+		Thread first = new Thread() {
+
+			@Override
+			public void run() {
+				create("Copcal");
+			}
+		};
+
+		Thread second = new Thread() {
+
+			@Override
+			public void run() {
+				create("Cashbuild");
+			}
+		};
+
+		try {
+			first.start();
+			awaitWaiting(first);
+
+			// finds the first thread waiting
+			second.start();
+			awaitWaiting(second);
+
+			Thread.sleep(20);
+		} finally {
+			mAdapter.close();
+		}
+
+		first.join(5000);
+		second.join(5000);
+
+		LockStats stats = mAdapter.getLockStats();
+
+		assertEquals(2, stats.getCount(Operation.SAVE));
+		assertTrue(stats.getMaxWaitTime(Operation.SAVE) >= 20000000L);
+		assertTrue(stats.getWaitTime(Operation.SAVE) >= 40000000L);
+		assertEquals(1, stats.getMaxQueueLength());
+		// three acquisitions, one of them found a thread waiting
+		assertEquals(1 / 3.0, stats.getAverageQueueLength(), 0.0001);
+	}
+
+	@Override
+	public void tearDown() {
+		mAdapter.setLockInstrumentation(false);
+		mAdapter.drop();
+	}
+}
@@ -0,0 +1,121 @@
+package com.orm.androrm.test.implementation;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import android.test.AndroidTestCase;
+
+import com.orm.androrm.DatabaseAdapter;
+import com.orm.androrm.Filter;
+import com.orm.androrm.Model;
+import com.orm.androrm.ModelCache;
+import com.orm.androrm.ModelField;
+import com.orm.androrm.ModelMetadata;
+import com.orm.androrm.impl.Branch;
+import com.orm.androrm.impl.Brand;
+import com.orm.androrm.impl.Product;
+import com.orm.androrm.impl.Shop;
+import com.orm.androrm.impl.Shop_Metadata;
+import com.orm.androrm.impl.Supplier;
+import com.orm.androrm.impl.TestDatabase;
+
+/**
+ * The fields of {@link Shop} are read through its generated metadata, 
+ * those of {@link Brand} by reflection. 
+ */
+public class MetadataTest extends AndroidTestCase {
+
+	private DatabaseAdapter mAdapter;
+	private ModelCache mCache;
+
+	@Override
+	public void setUp() {
+		List<Class<? extends Model>> models = new ArrayList<Class<? extends Model>>();
+		models.add(Product.class);
+		models.add(Branch.class);
+		models.add(Supplier.class);
+		models.add(Brand.class);
+		models.add(Shop.class);
+
+		mAdapter = TestDatabase.open(getContext(), models);
+		mCache = mAdapter.getModelCache();
+	}
+
+	private static List<String> names(List<ModelField> fields) {
+		List<String> names = new ArrayList<String>();
+
+		for(ModelField field : fields) {
+			names.add(field.getName());
+		}
+
+		return names;
+	}
+
+	public void testMetadataIsFound() {
+		ModelMetadata<Shop> metadata = mCache.getMetadata(Shop.class);
+
+		assertTrue(metadata instanceof Shop_Metadata);
+		assertSame(metadata, mCache.getMetadata(Shop.class));
+	}
+
+	public void testNoMetadata() {
+		// the absence is cached as well
+		assertNull(mCache.getMetadata(Brand.class));
+		assertNull(mCache.getMetadata(Brand.class));
+	}
+
+	public void testGeneratedFields() throws IllegalAccessException {
+		Shop shop = new Shop();
+		shop.setName("Corner");
+		shop.save();
+
+		ModelMetadata<Shop> metadata = mCache.getMetadata(Shop.class);
+		List<ModelField> fields = mCache.fieldsForModel(Shop.class);
+
+		assertEquals(Arrays.asList(metadata.getFieldNames()), names(fields));
+
+		for(int i = 0; i < fields.size(); i++) {
+			assertSame(metadata.getField(shop, i), fields.get(i).get(shop));
+		}
+	}
+
+	public void testReflectedFields() throws IllegalAccessException {
+		Brand brand = new Brand();
+		brand.setName("Copcal");
+		brand.save();
+
+		List<ModelField> fields = mCache.fieldsForModel(Brand.class);
+
+		assertEquals(Arrays.asList("mBranches", "mName"), names(fields));
+		assertEquals("Copcal", brand.getName());
+		assertNotNull(fields.get(1).get(brand));
+	}
+
+	public void testBothPaths() throws NoSuchFieldException {
+		Brand brand = new Brand();
+		brand.setName("Copcal");
+		brand.save();
+
+		Shop shop = new Shop();
+		shop.setName("Corner");
+		shop.setBrand(brand);
+		shop.save();
+
+		// read back through the factories and the row mappers of both paths
+		Shop loaded = Shop.objects(getContext()).get(shop.getId());
+
+		assertEquals("Corner", loaded.getName());
+		assertEquals("Copcal", loaded.getBrand(getContext()).getName());
+
+		Filter filter = new Filter();
+		filter.is("mBrand__mName", "Copcal");
+
+		assertEquals(1, Shop.objects(getContext()).filter(filter).count());
+	}
+
+	@Override
+	public void tearDown() {
+		mAdapter.drop();
+	}
+}
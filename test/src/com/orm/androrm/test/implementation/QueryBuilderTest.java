@@ -0,0 +1,259 @@
+package com.orm.androrm.test.implementation;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import android.test.AndroidTestCase;
+
+import com.orm.androrm.DatabaseAdapter;
+import com.orm.androrm.Filter;
+import com.orm.androrm.Model;
+import com.orm.androrm.NoSuchFieldException;
+import com.orm.androrm.QueryBuilder;
+import com.orm.androrm.impl.Branch;
+import com.orm.androrm.impl.Brand;
+import com.orm.androrm.impl.Product;
+import com.orm.androrm.impl.Supplier;
+import com.orm.androrm.impl.TestDatabase;
+
+public class QueryBuilderTest extends AndroidTestCase {
+
+	private DatabaseAdapter mAdapter;
+	private QueryBuilder mBuilder;
+	private List<Object> mArgs;
+
+	@Override
+	public void setUp() {
+		List<Class<? extends Model>> models = new ArrayList<Class<? extends Model>>();
+		models.add(Product.class);
+		models.add(Branch.class);
+		models.add(Supplier.class);
+		models.add(Brand.class);
+
+		mAdapter = TestDatabase.open(getContext(), models);
+		mBuilder = mAdapter.getQueryBuilder();
+		mArgs = new ArrayList<Object>();
+	}
+
+	private String sql(Class<? extends Model> clazz, Filter filter) {
+		return mBuilder.buildQuery(clazz, filter.getRules()).toSql(mArgs);
+	}
+
+	private static Branch branch(int id) {
+		Branch branch = new Branch();
+		branch.setId(id);
+
+		return branch;
+	}
+
+	public void testPlainColumn() {
+		Filter filter = new Filter();
+		filter.is("mName", "Copcal");
+
+		assertEquals("SELECT * FROM `brand` WHERE mName = ?", sql(Brand.class, filter));
+		assertEquals(Arrays.<Object>asList("Copcal"), mArgs);
+	}
+
+	public void testForeignKey() {
+		Brand brand = new Brand();
+		brand.setId(4);
+
+		Filter filter = new Filter();
+		filter.is("mBrand", brand);
+
+		assertEquals("SELECT * FROM `branch` WHERE mBrand = ?", sql(Branch.class, filter));
+		assertEquals(Arrays.<Object>asList("4"), mArgs);
+	}
+
+	public void testForeignKeyChain() {
+		Filter filter = new Filter();
+		filter.is("mBrand__mName", "Copcal");
+
+		assertEquals("SELECT * FROM `branch` WHERE mBrand IN "
+				+ "(SELECT mId FROM `brand` WHERE mName = ?)",
+				sql(Branch.class, filter));
+		assertEquals(Arrays.<Object>asList("Copcal"), mArgs);
+	}
+
+	public void testManyToMany() {
+		Filter filter = new Filter();
+		filter.contains("mBranches__mName", "Pretoria");
+
+		assertEquals("SELECT * FROM `supplier` WHERE mId IN "
+				+ "(SELECT supplier FROM `branch_supplier` WHERE branch IN "
+				+ "(SELECT mId FROM `branch` WHERE mName LIKE ?))",
+				sql(Supplier.class, filter));
+		assertEquals(Arrays.<Object>asList("%Pretoria%"), mArgs);
+	}
+
+	public void testOneToMany() {
+		Filter filter = new Filter();
+		filter.contains("mBranches__mName", "Pretoria");
+
+		assertEquals("SELECT * FROM `brand` WHERE mId IN "
+				+ "(SELECT mBrand FROM `branch` WHERE mName LIKE ?)",
+				sql(Brand.class, filter));
+		assertEquals(Arrays.<Object>asList("%Pretoria%"), mArgs);
+	}
+
+	public void testEndingInManyToMany() {
+		Filter filter = new Filter();
+		filter.in("mBranches", Arrays.asList(branch(1), branch(2)));
+
+		assertEquals("SELECT * FROM `supplier` WHERE mId IN "
+				+ "(SELECT supplier FROM `branch_supplier` WHERE branch IN (?,?))",
+				sql(Supplier.class, filter));
+		assertEquals(Arrays.<Object>asList(1, 2), mArgs);
+	}
+
+	public void testEndingInOneToMany() {
+		Filter filter = new Filter();
+		filter.in("mBranches", Arrays.asList(branch(3)));
+
+		assertEquals("SELECT * FROM `brand` WHERE mId IN "
+				+ "(SELECT mBrand FROM `branch` WHERE mId IN (?))",
+				sql(Brand.class, filter));
+		assertEquals(Arrays.<Object>asList(3), mArgs);
+	}
+
+	public void testRelationFilterTwice() {
+		mBuilder.clearTemplates();
+
+		Filter filter = new Filter();
+		filter.in("mBranches", Arrays.asList(branch(3)));
+
+		String first = sql(Brand.class, filter);
+
+		mArgs.clear();
+
+		assertEquals(first, sql(Brand.class, filter));
+		assertEquals(Arrays.<Object>asList(3), mArgs);
+		// the rule is not changed, so the same template is found again
+		assertEquals(1, mBuilder.getTemplateHits());
+		assertEquals(Collections.singleton("mBranches"),
+				filter.getRules().get(0).getStatement().getKeys());
+	}
+
+	public void testRelationFilterResultTwice() {
+		Brand brand = new Brand();
+		brand.setName("Copcal");
+		brand.save();
+
+		Branch branch = new Branch();
+		branch.setName("Pretoria");
+		branch.setBrand(brand);
+		branch.save();
+
+		Filter filter = new Filter();
+		filter.in("mBranches", Arrays.asList(branch));
+
+		List<Brand> first = Brand.objects(getContext()).filter(filter).toList();
+
+		// compile the rules again instead of using the template
+		mBuilder.clearTemplates();
+
+		assertEquals(first, Brand.objects(getContext()).filter(filter).toList());
+		assertEquals(Arrays.asList(brand), first);
+	}
+
+	public void testLongChain() {
+		Filter filter = new Filter();
+		filter.is("mBranches__mSuppliers__mName", "ACME");
+
+		assertEquals("SELECT * FROM `product` WHERE mId IN "
+				+ "(SELECT product FROM `branch_product` WHERE branch IN "
+				+ "(SELECT branch FROM `branch_supplier` WHERE supplier IN "
+				+ "(SELECT mId FROM `supplier` WHERE mName = ?)))",
+				sql(Product.class, filter));
+	}
+
+	public void testSeveralRules() {
+		Filter filter = new Filter();
+		filter.is("mName", "ACME")
+			  .contains("mBranches__mName", "Pretoria");
+
+		assertEquals("SELECT * FROM `supplier` WHERE mName = ? AND mId IN "
+				+ "(SELECT supplier FROM `branch_supplier` WHERE branch IN "
+				+ "(SELECT mId FROM `branch` WHERE mName LIKE ?))",
+				sql(Supplier.class, filter));
+		assertEquals(Arrays.<Object>asList("ACME", "%Pretoria%"), mArgs);
+	}
+
+	public void testNoRules() {
+		assertEquals("SELECT * FROM `brand`", sql(Brand.class, new Filter()));
+		assertTrue(mArgs.isEmpty());
+	}
+
+	public void testNoRelation() {
+		Filter filter = new Filter();
+		filter.is("mName__mName", "Copcal");
+
+		try {
+			sql(Branch.class, filter);
+
+			fail();
+		} catch(NoSuchFieldException e) {
+
+		}
+	}
+
+	public void testTemplateHit() {
+		mBuilder.clearTemplates();
+
+		Filter filter = new Filter();
+		filter.contains("mBranches__mName", "Pretoria");
+
+		String first = sql(Supplier.class, filter);
+
+		assertEquals(0, mBuilder.getTemplateHits());
+		assertEquals(1, mBuilder.getTemplateMisses());
+
+		// same shape with another value
+		mArgs.clear();
+		filter = new Filter();
+		filter.contains("mBranches__mName", "Cape Town");
+
+		assertEquals(first, sql(Supplier.class, filter));
+		assertEquals(Arrays.<Object>asList("%Cape Town%"), mArgs);
+		assertEquals(1, mBuilder.getTemplateHits());
+		assertEquals(1, mBuilder.getTemplateMisses());
+	}
+
+	public void testTemplatesAreBounded() {
+		mBuilder.clearTemplates();
+
+		// every number of values of an IN statement is a shape of its own
+		for(int i = 1; i <= 300; i++) {
+			sql(Brand.class, in(i));
+		}
+
+		assertEquals(300, mBuilder.getTemplateMisses());
+
+		// the most recent shape is still cached, the oldest one was dropped
+		sql(Brand.class, in(300));
+		assertEquals(1, mBuilder.getTemplateHits());
+
+		sql(Brand.class, in(1));
+		assertEquals(301, mBuilder.getTemplateMisses());
+	}
+
+	private static Filter in(int count) {
+		List<Integer> values = new ArrayList<Integer>();
+
+		for(int i = 0; i < count; i++) {
+			values.add(i);
+		}
+
+		Filter filter = new Filter();
+		filter.in("mId", values);
+
+		return filter;
+	}
+
+	@Override
+	public void tearDown() {
+		mAdapter.drop();
+	}
+}
@@ -2,20 +2,29 @@ package com.orm.androrm.test.implementation;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 import android.test.AndroidTestCase;
 
 import com.orm.androrm.DatabaseAdapter;
 import com.orm.androrm.Filter;
 import com.orm.androrm.Model;
+import com.orm.androrm.ModelConsumer;
+import com.orm.androrm.NoSuchFieldException;
+import com.orm.androrm.QueryIterator;
 import com.orm.androrm.QuerySet;
+import com.orm.androrm.SelectStatement;
 import com.orm.androrm.impl.Branch;
 import com.orm.androrm.impl.Brand;
 import com.orm.androrm.impl.Product;
+import com.orm.androrm.impl.Stock;
 import com.orm.androrm.impl.Supplier;
+import com.orm.androrm.impl.TestDatabase;
 
 public class QuerySetTest extends AndroidTestCase {
 
+	private DatabaseAdapter mAdapter;
+	
 	@Override
 	public void setUp() {
 		List<Class<? extends Model>> models = new ArrayList<Class<? extends Model>>();
@@ -23,11 +32,9 @@ public class QuerySetTest extends AndroidTestCase {
 		models.add(Branch.class);
 		models.add(Supplier.class);
 		models.add(Brand.class);
+		models.add(Stock.class);
 		
-		DatabaseAdapter.setDatabaseName("test_db");
-		
-		DatabaseAdapter adapter = new DatabaseAdapter();
-		adapter.setModels(models);
+		mAdapter = TestDatabase.open(getContext(), models);
 		
 		Brand b = new Brand();
 		b.setName("Copcal");
@@ -76,6 +83,40 @@ public class QuerySetTest extends AndroidTestCase {
 		assertEquals(2, Branch.objects(getContext()).all().limit(1, 2).count());
 	}
 	
+	public void testDistinctCopiesQuery() {
+		QuerySet<Branch> branches = Branch.objects(getContext()).all();
+		SelectStatement query = branches.getQuery();
+		
+		branches.distinct();
+		
+		// statements handed out before, e.g. to fetchAsync(), stay unchanged
+		assertFalse(query.isDistinct());
+		assertNotSame(query, branches.getQuery());
+		assertTrue(branches.getQuery().isDistinct());
+		assertEquals(Branch.objects(getContext()).count(), branches.count());
+	}
+	
+	public void testOrderByFilter() {
+		Filter filter = new Filter();
+		filter.contains("mName", "Pretoria");
+		
+		QuerySet<Branch> branches = Branch.objects(getContext())
+				.all()
+				.orderBy("-mName")
+				.filter(filter);
+		
+		// the filter is merged into the ordered query
+		List<Object> args = new ArrayList<Object>();
+		assertEquals("SELECT * FROM `branch` WHERE mName LIKE ? ORDER BY mName COLLATE NOCASE DESC", 
+				branches.getQuery().toSql(args));
+		
+		List<Branch> result = branches.toList();
+		
+		assertEquals(2, result.size());
+		assertEquals("Plumblink Pretoria", result.get(0).getName());
+		assertEquals("Cashbuild Pretoria", result.get(1).getName());
+	}
+	
 	public void testContains() {
 		Filter filter = new Filter();
 		filter.contains("mName", "Pretoria");
@@ -89,8 +130,299 @@ public class QuerySetTest extends AndroidTestCase {
 		assertFalse(result.contains(notContained));
 	}
 	
+	public void testIterate() {
+		QueryIterator<Branch> it = Branch.objects(getContext()).all().iterate();
+		List<String> names = new ArrayList<String>();
+		
+		while(it.hasNext()) {
+			names.add(it.next().getName());
+		}
+		
+		assertEquals(3, names.size());
+		assertTrue(names.contains("The third Branch"));
+		// reading to the end closes the cursor
+		assertTrue(it.isClosed());
+		assertUnlocked();
+	}
+	
+	public void testIterateEarlyExit() {
+		QueryIterator<Branch> it = Branch.objects(getContext()).all().iterate();
+		
+		assertNotNull(it.next());
+		assertFalse(it.isClosed());
+		
+		it.close();
+		
+		assertTrue(it.isClosed());
+		assertFalse(it.hasNext());
+		// closing twice has no effect
+		it.close();
+		assertUnlocked();
+	}
+	
+	public void testIterateEmpty() {
+		Filter filter = new Filter();
+		filter.is("mName", "no such branch");
+		
+		QueryIterator<Branch> it = Branch.objects(getContext()).filter(filter).iterate();
+		
+		assertFalse(it.hasNext());
+		assertTrue(it.isClosed());
+		assertUnlocked();
+	}
+	
+	public void testForEachReusing() {
+		final List<String> names = new ArrayList<String>();
+		final Branch[] first = new Branch[1];
+		
+		int rows = Branch.objects(getContext()).all().forEachReusing(new ModelConsumer<Branch>() {
+			
+			@Override
+			public void accept(Branch branch) {
+				names.add(branch.getName());
+				
+				// every row is read into the same instance
+				if(first[0] == null) {
+					first[0] = branch;
+				} else {
+					assertSame(first[0], branch);
+				}
+			}
+		});
+		
+		assertEquals(3, rows);
+		assertEquals(3, names.size());
+		assertTrue(names.contains("Cashbuild Pretoria"));
+		assertTrue(names.contains("The third Branch"));
+		assertUnlocked();
+	}
+	
+	public void testForEachReusingEarlyExit() {
+		final RuntimeException stop = new IllegalStateException("stop");
+		
+		try {
+			Branch.objects(getContext()).all().forEachReusing(new ModelConsumer<Branch>() {
+				
+				@Override
+				public void accept(Branch branch) {
+					throw stop;
+				}
+			});
+			
+			fail();
+		} catch(IllegalStateException e) {
+			assertSame(stop, e);
+		}
+		
+		assertUnlocked();
+	}
+	
+	public void testValuesList() {
+		createStocks(3);
+		
+		List<Object[]> rows = Stock.objects(getContext())
+				.all()
+				.orderBy("mQuantity")
+				.valuesList("mQuantity", "mPrice", "mAvailable", "mBranch");
+		
+		assertEquals(3, rows.size());
+		
+		Object[] row = rows.get(1);
+		
+		assertEquals(4, row.length);
+		assertEquals(Integer.valueOf(1), row[0]);
+		assertEquals(Double.valueOf(1.5), row[1]);
+		assertEquals(Boolean.FALSE, row[2]);
+		// foreign keys are read as the id of the referenced model
+		assertEquals(Integer.valueOf(2), row[3]);
+	}
+	
+	public void testValues() {
+		createStocks(3);
+		
+		List<Map<String, Object>> rows = Stock.objects(getContext())
+				.all()
+				.orderBy("-mQuantity")
+				.values("mBranch", "mQuantity");
+		
+		assertEquals(3, rows.size());
+		
+		Map<String, Object> row = rows.get(0);
+		
+		assertEquals(2, row.size());
+		assertEquals("mBranch", row.keySet().iterator().next());
+		assertEquals(Integer.valueOf(3), row.get("mBranch"));
+		assertEquals(Integer.valueOf(2), row.get("mQuantity"));
+	}
+	
+	public void testValuesOfFilter() {
+		createStocks(6);
+		
+		Filter filter = new Filter();
+		filter.is("mBranch__mName", "Cashbuild Pretoria");
+		
+		List<Object[]> rows = Stock.objects(getContext())
+				.filter(filter)
+				.orderBy("mQuantity")
+				.valuesList("mQuantity");
+		
+		assertEquals(2, rows.size());
+		assertEquals(Integer.valueOf(0), rows.get(0)[0]);
+		assertEquals(Integer.valueOf(3), rows.get(1)[0]);
+	}
+	
+	public void testValuesNoSuchField() {
+		try {
+			Branch.objects(getContext()).all().valuesList("mNoSuchField");
+			
+			fail();
+		} catch(NoSuchFieldException e) {
+			
+		}
+		
+		try {
+			// relations to many models are no data fields
+			Branch.objects(getContext()).all().values("mProducts");
+			
+			fail();
+		} catch(NoSuchFieldException e) {
+			
+		}
+	}
+	
+	public void testIntColumn() {
+		// more rows than the initial capacity of the array
+		createStocks(40);
+		
+		int[] quantities = Stock.objects(getContext()).all().orderBy("mQuantity").intColumn("mQuantity");
+		
+		assertEquals(40, quantities.length);
+		
+		for(int i = 0; i < quantities.length; i++) {
+			assertEquals(i, quantities[i]);
+		}
+	}
+	
+	public void testLongColumn() {
+		createStocks(20);
+		
+		long[] quantities = Stock.objects(getContext()).all().orderBy("-mQuantity").longColumn("mQuantity");
+		
+		assertEquals(20, quantities.length);
+		assertEquals(19L, quantities[0]);
+		assertEquals(0L, quantities[19]);
+	}
+	
+	public void testDoubleColumn() {
+		createStocks(17);
+		
+		double[] prices = Stock.objects(getContext()).all().orderBy("mQuantity").doubleColumn("mPrice");
+		
+		assertEquals(17, prices.length);
+		assertEquals(0.5, prices[0], 0);
+		assertEquals(16.5, prices[16], 0);
+	}
+	
+	public void testBooleanColumn() {
+		createStocks(33);
+		
+		boolean[] available = Stock.objects(getContext()).all().orderBy("mQuantity").booleanColumn("mAvailable");
+		
+		assertEquals(33, available.length);
+		
+		for(int i = 0; i < available.length; i++) {
+			assertEquals(i % 2 == 0, available[i]);
+		}
+	}
+	
+	public void testForeignKeyColumn() {
+		createStocks(4);
+		
+		int[] branches = Stock.objects(getContext()).all().orderBy("mQuantity").intColumn("mBranch");
+		
+		assertEquals(4, branches.length);
+		assertEquals(1, branches[0]);
+		assertEquals(2, branches[1]);
+		assertEquals(3, branches[2]);
+		assertEquals(1, branches[3]);
+	}
+	
+	public void testEmptyColumn() {
+		assertEquals(0, Stock.objects(getContext()).all().intColumn("mQuantity").length);
+		assertEquals(0, Stock.objects(getContext()).all().booleanColumn("mAvailable").length);
+	}
+	
+	public void testColumnNoSuchField() {
+		try {
+			Stock.objects(getContext()).all().intColumn("mNoSuchField");
+			
+			fail();
+		} catch(NoSuchFieldException e) {
+			
+		}
+	}
+	
+	public void testColumnsWithoutQuery() {
+		createStocks(3);
+		
+		QuerySet<Stock> stocks = Stock.objects(getContext());
+		
+		assertEquals(3, stocks.valuesList("mQuantity").size());
+		assertEquals(3, stocks.intColumn("mQuantity").length);
+		// the columns are read from all rows without selecting them in the set
+		assertNull(stocks.getQuery());
+	}
+	
+	/**
+	 * Creates count stocks, that are spread over the three 
+	 * branches. Stock i has the quantity i, the price i + 0.5 
+	 * and is available if i is even. 
+	 */
+	private void createStocks(int count) {
+		List<Branch> branches = new ArrayList<Branch>();
+		
+		for(int i = 1; i <= 3; i++) {
+			branches.add(Branch.objects(getContext()).get(i));
+		}
+		
+		for(int i = 0; i < count; i++) {
+			Stock stock = new Stock();
+			stock.setBranch(branches.get(i % 3));
+			stock.setQuantity(i);
+			stock.setPrice(i + 0.5);
+			stock.setAvailable(i % 2 == 0);
+			stock.save();
+		}
+	}
+	
+	/**
+	 * Checks, that the lock of the adapter has been released, by
+	 * writing from another thread. 
+	 */
+	private void assertUnlocked() {
+		Thread writer = new Thread() {
+			
+			@Override
+			public void run() {
+				Brand brand = new Brand();
+				brand.setName("other thread");
+				brand.save();
+			}
+		};
+		
+		writer.start();
+		
+		try {
+			writer.join(5000);
+		} catch(InterruptedException e) {
+			fail();
+		}
+		
+		assertFalse(writer.isAlive());
+	}
+	
+	@Override
 	public void tearDown() {
-		DatabaseAdapter adapter = new DatabaseAdapter();
-		adapter.drop();
+		mAdapter.drop();
 	}
 }
@@ -0,0 +1,129 @@
+package com.orm.androrm.test.implementation;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import android.test.AndroidTestCase;
+
+import com.orm.androrm.DatabaseAdapter;
+import com.orm.androrm.Model;
+import com.orm.androrm.SlowQuery;
+import com.orm.androrm.impl.Brand;
+import com.orm.androrm.impl.TestDatabase;
+
+public class SlowQueryTest extends AndroidTestCase {
+
+	private DatabaseAdapter mAdapter;
+
+	@Override
+	public void setUp() {
+		List<Class<? extends Model>> models = new ArrayList<Class<? extends Model>>();
+		models.add(Brand.class);
+
+		mAdapter = TestDatabase.open(getContext(), models);
+
+		for(int i = 0; i < 5; i++) {
+			Brand brand = new Brand();
+			brand.setName("Brand " + i);
+			brand.save();
+		}
+	}
+
+	/**
+	 * @return The logged queries on the brand table.
+	 */
+	private List<SlowQuery> getSelects() {
+		List<SlowQuery> selects = new ArrayList<SlowQuery>();
+
+		for(SlowQuery query : mAdapter.getSlowQueries()) {
+			if(query.getSql().startsWith("SELECT * FROM `brand`")) {
+				selects.add(query);
+			}
+		}
+
+		return selects;
+	}
+
+	public void testLogged() {
+		// every statement takes at least 0 ms
+		mAdapter.setSlowQueryLog(0, 10);
+
+		assertTrue(mAdapter.isSlowQueryLog());
+		assertEquals(5, Brand.objects(getContext()).all().toList().size());
+
+		List<SlowQuery> selects = getSelects();
+
+		assertEquals(1, selects.size());
+
+		SlowQuery query = selects.get(0);
+
+		assertFalse(query.getPlan().isEmpty());
+		assertTrue(query.isFullScan());
+		assertTrue(query.getDuration() >= 0);
+	}
+
+	public void testPlanOfLookup() {
+		mAdapter.setSlowQueryLog(0, 10);
+
+		assertNotNull(Brand.objects(getContext()).get(3));
+
+		List<SlowQuery> selects = getSelects();
+
+		assertEquals(1, selects.size());
+		assertEquals("3", selects.get(0).getArgs()[0]);
+		assertFalse(selects.get(0).getPlan().isEmpty());
+		// looked up by its primary key
+		assertFalse(selects.get(0).isFullScan());
+	}
+
+	private static boolean isFullScan(String step) {
+		return new SlowQuery("SELECT", null, 0, 0, Arrays.asList(step)).isFullScan();
+	}
+
+	public void testFullScanSteps() {
+		assertTrue(isFullScan("SCAN TABLE brand"));
+		assertTrue(isFullScan("SCAN brand"));
+		assertTrue(isFullScan("SCAN SUBQUERY 1"));
+		// steps, that don't read every row
+		assertFalse(isFullScan("SCAN TABLE brand USING INDEX brand_name"));
+		assertFalse(isFullScan("SCAN brand USING COVERING INDEX brand_name"));
+		assertFalse(isFullScan("SCAN TABLE brand USING INTEGER PRIMARY KEY (rowid>?)"));
+		assertFalse(isFullScan("SEARCH brand USING INTEGER PRIMARY KEY (rowid=?)"));
+		assertFalse(isFullScan("SCAN CONSTANT ROW"));
+	}
+
+	public void testNewestEntriesAreKept() {
+		mAdapter.setSlowQueryLog(0, 3);
+
+		for(int id = 1; id <= 5; id++) {
+			Brand.objects(getContext()).get(id);
+		}
+
+		List<SlowQuery> entries = mAdapter.getSlowQueries();
+
+		assertEquals(3, entries.size());
+		assertEquals("3", entries.get(0).getArgs()[0]);
+		assertEquals("4", entries.get(1).getArgs()[0]);
+		assertEquals("5", entries.get(2).getArgs()[0]);
+	}
+
+	public void testDisabled() {
+		mAdapter.setSlowQueryLog(0, 10);
+		mAdapter.setSlowQueryLog(-1, 10);
+		mAdapter.clearSlowQueries();
+
+		assertFalse(mAdapter.isSlowQueryLog());
+
+		Brand.objects(getContext()).all().toList();
+		Brand.objects(getContext()).get(1);
+
+		assertTrue(mAdapter.getSlowQueries().isEmpty());
+	}
+
+	@Override
+	public void tearDown() {
+		mAdapter.setSlowQueryLog(-1, 0);
+		mAdapter.drop();
+	}
+}
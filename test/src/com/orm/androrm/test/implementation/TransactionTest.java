@@ -0,0 +1,180 @@
+package com.orm.androrm.test.implementation;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import android.test.AndroidTestCase;
+
+import com.orm.androrm.DatabaseAdapter;
+import com.orm.androrm.Model;
+import com.orm.androrm.TransactionCallback;
+import com.orm.androrm.impl.Brand;
+import com.orm.androrm.impl.TestDatabase;
+
+public class TransactionTest extends AndroidTestCase {
+
+	private DatabaseAdapter mAdapter;
+
+	@Override
+	public void setUp() {
+		List<Class<? extends Model>> models = new ArrayList<Class<? extends Model>>();
+		models.add(Brand.class);
+
+		mAdapter = TestDatabase.open(getContext(), models);
+	}
+
+	private static Brand create(String name) {
+		Brand brand = new Brand();
+		brand.setName(name);
+		brand.save();
+
+		return brand;
+	}
+
+	private int count() {
+		return mAdapter.objects(Brand.class).all().count();
+	}
+
+	public void testCommit() {
+		String result = mAdapter.runInTransaction(new TransactionCallback<String>() {
+
+			@Override
+			public String run(DatabaseAdapter adapter) {
+				create("one");
+				create("two");
+
+				assertTrue(adapter.inTransaction());
+
+				return "done";
+			}
+		});
+
+		assertEquals("done", result);
+		assertFalse(mAdapter.inTransaction());
+		assertEquals(2, count());
+	}
+
+	public void testRollback() {
+		final RuntimeException failure = new IllegalStateException("rollback");
+
+		try {
+			mAdapter.runInTransaction(new TransactionCallback<Void>() {
+
+				@Override
+				public Void run(DatabaseAdapter adapter) {
+					create("one");
+
+					throw failure;
+				}
+			});
+
+			fail();
+		} catch(IllegalStateException e) {
+			assertSame(failure, e);
+		}
+
+		assertFalse(mAdapter.inTransaction());
+		assertEquals(0, count());
+	}
+
+	public void testNested() {
+		mAdapter.runInTransaction(new TransactionCallback<Void>() {
+
+			@Override
+			public Void run(final DatabaseAdapter outer) {
+				create("outer");
+
+				outer.runInTransaction(new TransactionCallback<Void>() {
+
+					@Override
+					public Void run(DatabaseAdapter inner) {
+						create("inner");
+
+						assertTrue(inner.inTransaction());
+
+						return null;
+					}
+				});
+
+				// leaving the inner transaction must not end the outer one
+				assertTrue(outer.inTransaction());
+				assertEquals(2, count());
+
+				return null;
+			}
+		});
+
+		assertFalse(mAdapter.inTransaction());
+		assertEquals(2, count());
+	}
+
+	public void testNestedRollback() {
+		mAdapter.runInTransaction(new TransactionCallback<Void>() {
+
+			@Override
+			public Void run(DatabaseAdapter outer) {
+				create("outer");
+
+				try {
+					outer.runInTransaction(new TransactionCallback<Void>() {
+
+						@Override
+						public Void run(DatabaseAdapter inner) {
+							create("inner");
+
+							throw new IllegalStateException("rollback");
+						}
+					});
+
+					fail();
+				} catch(IllegalStateException e) {}
+
+				assertTrue(outer.inTransaction());
+
+				return null;
+			}
+		});
+
+		// a failed nested transaction rolls back the outermost one
+		assertFalse(mAdapter.inTransaction());
+		assertEquals(0, count());
+	}
+
+	public void testNestedReleasesLock() throws InterruptedException {
+		mAdapter.runInTransaction(new TransactionCallback<Void>() {
+
+			@Override
+			public Void run(DatabaseAdapter outer) {
+				return outer.runInTransaction(new TransactionCallback<Void>() {
+
+					@Override
+					public Void run(DatabaseAdapter inner) {
+						create("inner");
+
+						return null;
+					}
+				});
+			}
+		});
+
+		// the lock is taken once per level and has to be free again for other threads
+		Thread writer = new Thread() {
+
+			@Override
+			public void run() {
+				create("other thread");
+			}
+		};
+
+		writer.start();
+		writer.join(5000);
+
+		assertFalse(writer.isAlive());
+		assertEquals(2, count());
+	}
+
+	@Override
+	public void tearDown() {
+		mAdapter.drop();
+	}
+}
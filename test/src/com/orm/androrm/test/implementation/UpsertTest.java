@@ -0,0 +1,130 @@
+package com.orm.androrm.test.implementation;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import android.content.ContentValues;
+import android.database.SQLException;
+import android.test.AndroidTestCase;
+
+import com.orm.androrm.DatabaseAdapter;
+import com.orm.androrm.Model;
+import com.orm.androrm.UpsertResult;
+import com.orm.androrm.Where;
+import com.orm.androrm.impl.BlankModelNoAutoincrement;
+import com.orm.androrm.impl.Brand;
+import com.orm.androrm.impl.TestDatabase;
+
+public class UpsertTest extends AndroidTestCase {
+
+	private DatabaseAdapter mAdapter;
+	private String mTable;
+
+	@Override
+	public void setUp() {
+		List<Class<? extends Model>> models = new ArrayList<Class<? extends Model>>();
+		models.add(Brand.class);
+		models.add(BlankModelNoAutoincrement.class);
+
+		mAdapter = TestDatabase.open(getContext(), models);
+		mTable = mAdapter.getTableName(Brand.class);
+	}
+
+	private static ContentValues name(String name) {
+		ContentValues values = new ContentValues();
+		values.put("mName", name);
+
+		return values;
+	}
+
+	public void testInsert() {
+		UpsertResult result = mAdapter.upsert(mTable, name("Copcal"), 0);
+
+		assertTrue(result.isInsert());
+		assertEquals("Copcal", Brand.objects(getContext()).get((int) result.getRowId()).getName());
+	}
+
+	public void testUpdateHit() {
+		int id = (int) mAdapter.upsert(mTable, name("Copcal"), 0).getRowId();
+
+		UpsertResult result = mAdapter.upsert(mTable, name("Cashbuild"), id);
+
+		assertFalse(result.isInsert());
+		assertEquals(id, result.getRowId());
+		assertEquals(1, Brand.objects(getContext()).all().count());
+		assertEquals("Cashbuild", Brand.objects(getContext()).get(id).getName());
+	}
+
+	public void testUpdateMiss() {
+		ContentValues values = name("Copcal");
+		values.put(Model.PK, 42);
+
+		UpsertResult result = mAdapter.upsert(mTable, values, 42);
+
+		assertTrue(result.isInsert());
+		assertEquals(42, result.getRowId());
+		assertEquals("Copcal", Brand.objects(getContext()).get(42).getName());
+	}
+
+	public void testFailure() {
+		try {
+			mAdapter.upsert("missing", name("Copcal"), 0);
+
+			fail();
+		} catch(SQLException e) {
+
+		}
+	}
+
+	public void testSaveUpdatesExistingRow() {
+		Brand brand = new Brand();
+		brand.setName("Copcal");
+
+		assertTrue(brand.save());
+
+		int id = brand.getId();
+		brand.setName("Cashbuild");
+
+		assertTrue(brand.save());
+		assertEquals(id, brand.getId());
+		assertEquals(1, Brand.objects(getContext()).all().count());
+		assertEquals("Cashbuild", Brand.objects(getContext()).get(id).getName());
+	}
+
+	public void testSaveInsertsMissingRow() {
+		Brand brand = new Brand();
+		brand.setName("Copcal");
+		brand.save();
+
+		int id = brand.getId();
+
+		Where where = new Where();
+		where.and(Model.PK, id);
+		mAdapter.delete(mTable, where);
+
+		// the update misses and the row is inserted again
+		brand.setName("Cashbuild");
+
+		assertTrue(brand.save());
+		assertEquals(id, brand.getId());
+		assertEquals(1, Brand.objects(getContext()).all().count());
+		assertEquals("Cashbuild", Brand.objects(getContext()).get(id).getName());
+	}
+
+	public void testSaveWithoutAutoincrement() {
+		BlankModelNoAutoincrement model = new BlankModelNoAutoincrement();
+
+		assertTrue(model.save(5));
+		assertEquals(5, model.getId());
+
+		// second save with the same id hits the existing row
+		assertTrue(model.save(5));
+		assertEquals(1, mAdapter.objects(BlankModelNoAutoincrement.class).all().count());
+		assertNotNull(mAdapter.objects(BlankModelNoAutoincrement.class).get(5));
+	}
+
+	@Override
+	public void tearDown() {
+		mAdapter.drop();
+	}
+}
@@ -0,0 +1,214 @@
+package com.orm.androrm.test.implementation;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import android.test.AndroidTestCase;
+
+import com.orm.androrm.DatabaseAdapter;
+import com.orm.androrm.Model;
+import com.orm.androrm.QueryIterator;
+import com.orm.androrm.impl.Brand;
+import com.orm.androrm.impl.TestDatabase;
+
+public class WriteAheadLoggingTest extends AndroidTestCase {
+
+	private DatabaseAdapter mAdapter;
+	private boolean mWriteAheadLogging;
+
+	@Override
+	public void setUp() {
+		List<Class<? extends Model>> models = new ArrayList<Class<? extends Model>>();
+		models.add(Brand.class);
+
+		mAdapter = TestDatabase.open(getContext(), models);
+
+		for(int i = 0; i < 5; i++) {
+			create("Brand " + i);
+		}
+
+		// not available before API level 11, where the tests below have nothing to check
+		mWriteAheadLogging = mAdapter.setWriteAheadLogging(true);
+	}
+
+	private static Brand create(String name) {
+		Brand brand = new Brand();
+		brand.setName(name);
+		brand.save();
+
+		return brand;
+	}
+
+	private int count() {
+		return Brand.objects(getContext()).all().count();
+	}
+
+	public void testConcurrentReaders() throws Exception {
+		if(!mWriteAheadLogging) {
+			return;
+		}
+
+		final CountDownLatch reading = new CountDownLatch(1);
+		final CountDownLatch release = new CountDownLatch(1);
+
+		Thread reader = new Thread() {
+
+			@Override
+			public void run() {
+				QueryIterator<Brand> it = Brand.objects(getContext()).all().iterate();
+
+				try {
+					it.next();
+					reading.countDown();
+					release.await();
+				} catch(InterruptedException e) {
+
+				} finally {
+					it.close();
+				}
+			}
+		};
+
+		reader.start();
+		assertTrue(reading.await(5, TimeUnit.SECONDS));
+
+		// a second reader does not wait for the first one
+		Future<Integer> count = Brand.objects(getContext()).all().countAsync();
+		assertEquals(5, (int) count.get(5, TimeUnit.SECONDS));
+
+		// a writer does
+		Brand brand = new Brand();
+		brand.setName("Cashbuild");
+		Future<Boolean> saved = brand.saveAsync();
+
+		try {
+			saved.get(100, TimeUnit.MILLISECONDS);
+
+			fail();
+		} catch(TimeoutException e) {
+
+		}
+
+		release.countDown();
+
+		assertTrue(saved.get(5, TimeUnit.SECONDS));
+		reader.join();
+		assertEquals(6, count());
+	}
+
+	public void testReadersAndWriter() throws Exception {
+		if(!mWriteAheadLogging) {
+			return;
+		}
+
+		final List<Throwable> errors = new ArrayList<Throwable>();
+		List<Thread> threads = new ArrayList<Thread>();
+
+		for(int i = 0; i < 4; i++) {
+			threads.add(new Thread() {
+
+				@Override
+				public void run() {
+					try {
+						int last = 0;
+
+						for(int j = 0; j < 20; j++) {
+							int rows = Brand.objects(getContext()).all().toList().size();
+
+							// rows are only ever added
+							if(rows < last || rows > 25) {
+								throw new AssertionError("read " + rows + " rows after " + last);
+							}
+
+							last = rows;
+						}
+					} catch(Throwable e) {
+						synchronized(errors) {
+							errors.add(e);
+						}
+					}
+				}
+			});
+		}
+
+		threads.add(new Thread() {
+
+			@Override
+			public void run() {
+				try {
+					for(int j = 0; j < 20; j++) {
+						create("Writer " + j);
+					}
+				} catch(Throwable e) {
+					synchronized(errors) {
+						errors.add(e);
+					}
+				}
+			}
+		});
+
+		for(Thread thread : threads) {
+			thread.start();
+		}
+
+		for(Thread thread : threads) {
+			thread.join(10000);
+		}
+
+		assertTrue(errors.toString(), errors.isEmpty());
+		assertEquals(25, count());
+	}
+
+	public void testWriteWhileReading() {
+		if(!mWriteAheadLogging) {
+			return;
+		}
+
+		QueryIterator<Brand> it = Brand.objects(getContext()).all().iterate();
+
+		try {
+			it.next();
+
+			try {
+				create("Cashbuild");
+
+				fail();
+			} catch(IllegalStateException e) {
+
+			}
+		} finally {
+			it.close();
+		}
+
+		// without the read lock the same write succeeds
+		create("Cashbuild");
+		assertEquals(6, count());
+	}
+
+	public void testDisable() {
+		mAdapter.open();
+
+		try {
+			assertFalse(mAdapter.setWriteAheadLogging(false));
+			assertFalse(mAdapter.isWriteAheadLogging());
+
+			// the connection can still be used by whoever opened it
+			assertEquals(5, count());
+		} finally {
+			mAdapter.close();
+		}
+
+		create("Cashbuild");
+		assertEquals(6, count());
+	}
+
+	@Override
+	public void tearDown() {
+		mAdapter.setWriteAheadLogging(false);
+		mAdapter.drop();
+	}
+}
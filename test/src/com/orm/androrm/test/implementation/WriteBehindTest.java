@@ -0,0 +1,201 @@
+package com.orm.androrm.test.implementation;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import android.test.AndroidTestCase;
+
+import com.orm.androrm.DatabaseAdapter;
+import com.orm.androrm.Model;
+import com.orm.androrm.TransactionCallback;
+import com.orm.androrm.WriteBehindListener;
+import com.orm.androrm.impl.BlankModelNoAutoincrement;
+import com.orm.androrm.impl.Branch;
+import com.orm.androrm.impl.Brand;
+import com.orm.androrm.impl.Product;
+import com.orm.androrm.impl.Supplier;
+import com.orm.androrm.impl.TestDatabase;
+
+public class WriteBehindTest extends AndroidTestCase {
+
+	private DatabaseAdapter mAdapter;
+	private List<Model> mSaved;
+	private List<Model> mFailed;
+	private CountDownLatch mFlushed;
+
+	@Override
+	public void setUp() {
+		List<Class<? extends Model>> models = new ArrayList<Class<? extends Model>>();
+		models.add(Product.class);
+		models.add(Branch.class);
+		models.add(Supplier.class);
+		models.add(Brand.class);
+
+		mAdapter = TestDatabase.open(getContext(), models);
+
+		mFlushed = new CountDownLatch(1);
+		mAdapter.setWriteBehindListener(new WriteBehindListener() {
+
+			@Override
+			public void onFlush(List<Model> saved, List<Model> failed) {
+				mSaved = saved;
+				mFailed = failed;
+				mFlushed.countDown();
+			}
+		});
+	}
+
+	private static Brand create(String name) {
+		Brand brand = new Brand();
+		brand.setName(name);
+		brand.save();
+
+		return brand;
+	}
+
+	private String nameOf(Brand brand) {
+		return Brand.objects(getContext()).get(brand.getId()).getName();
+	}
+
+	public void testCoalesce() {
+		Brand brand = create("Copcal");
+
+		mAdapter.setWriteBehind(60000, 100);
+
+		brand.setName("Cashbuild");
+		assertTrue(brand.save());
+		brand.setName("Plumblink");
+		assertTrue(brand.save());
+
+		// queued saves are not visible to queries before the flush
+		assertEquals("Copcal", nameOf(brand));
+
+		assertEquals(1, mAdapter.flush());
+		assertEquals(1, mSaved.size());
+		assertSame(brand, mSaved.get(0));
+		assertTrue(mFailed.isEmpty());
+		assertEquals("Plumblink", nameOf(brand));
+	}
+
+	public void testNewModelsAreNotQueued() {
+		mAdapter.setWriteBehind(60000, 100);
+
+		Brand brand = create("Copcal");
+
+		assertTrue(brand.getId() != 0);
+		assertEquals("Copcal", nameOf(brand));
+		assertEquals(0, mAdapter.flush());
+	}
+
+	public void testMaxEntries() throws InterruptedException {
+		Brand first = create("Copcal");
+		Brand second = create("Cashbuild");
+
+		mAdapter.setWriteBehind(60000, 2);
+
+		// saving the same row again does not count towards maxEntries
+		first.setName("Plumblink");
+		first.save();
+		first.save();
+
+		second.setName("Builders");
+		second.save();
+
+		assertTrue(mFlushed.await(5, TimeUnit.SECONDS));
+		assertEquals(2, mSaved.size());
+		assertEquals("Plumblink", nameOf(first));
+		assertEquals("Builders", nameOf(second));
+	}
+
+	public void testDeleteDequeues() {
+		Brand brand = create("Copcal");
+		int id = brand.getId();
+
+		mAdapter.setWriteBehind(60000, 100);
+
+		brand.setName("Cashbuild");
+		brand.save();
+
+		assertTrue(brand.delete());
+		assertEquals(0, mAdapter.flush());
+		assertNull(Brand.objects(getContext()).get(id));
+		assertNull(mSaved);
+	}
+
+	public void testFailedFlush() {
+		Brand brand = create("Copcal");
+
+		mAdapter.setWriteBehind(60000, 100);
+
+		brand.setName("Cashbuild");
+		brand.save();
+
+		// the table of this model does not exist, which fails the whole flush
+		BlankModelNoAutoincrement unknown = new BlankModelNoAutoincrement();
+		assertTrue(unknown.save(5));
+
+		assertEquals(0, mAdapter.flush());
+		assertTrue(mSaved.isEmpty());
+		assertEquals(2, mFailed.size());
+		assertTrue(mFailed.contains(brand));
+		assertTrue(mFailed.contains(unknown));
+		assertEquals("Copcal", nameOf(brand));
+	}
+
+	public void testRollback() {
+		final Brand brand = create("Copcal");
+
+		mAdapter.setWriteBehind(60000, 100);
+
+		try {
+			mAdapter.runInTransaction(new TransactionCallback<Void>() {
+
+				@Override
+				public Void run(DatabaseAdapter adapter) {
+					brand.setName("Cashbuild");
+					brand.save();
+
+					// written right away as part of the transaction
+					assertEquals("Cashbuild", nameOf(brand));
+
+					throw new IllegalStateException();
+				}
+			});
+
+			fail();
+		} catch(IllegalStateException e) {
+
+		}
+
+		assertEquals("Copcal", nameOf(brand));
+		assertEquals(0, mAdapter.flush());
+	}
+
+	public void testRelatedModelsAreWrittenByFlush() {
+		Brand brand = create("Copcal");
+
+		Branch branch = new Branch();
+		branch.setName("Pretoria");
+		branch.save();
+
+		mAdapter.setWriteBehind(60000, 100);
+
+		brand.addBranch(branch);
+		brand.save();
+
+		assertEquals(1, mAdapter.flush());
+		assertEquals(brand, Branch.objects(getContext()).get(branch.getId()).getBrand(getContext()));
+
+		// saving the branch during the flush did not queue it again
+		assertEquals(0, mAdapter.flush());
+	}
+
+	@Override
+	public void tearDown() {
+		mAdapter.setWriteBehindListener(null);
+		mAdapter.setWriteBehind(0, 1);
+		mAdapter.drop();
+	}
+}
@@ -10,7 +10,9 @@ public class AllTest extends TestSuite {
 		
 		suite.addTestSuite(AndStatementTest.class);
 		suite.addTestSuite(DeleteStatementTest.class);
+		suite.addTestSuite(InSelectStatementTest.class);
 		suite.addTestSuite(InStatementTest.class);
+		suite.addTestSuite(InsertStatementTest.class);
 		suite.addTestSuite(JoinStatementTest.class);
 		suite.addTestSuite(LikeStatementTest.class);
 		suite.addTestSuite(LimitTest.class);
@@ -18,6 +20,8 @@ public class AllTest extends TestSuite {
 		suite.addTestSuite(OrStatementTest.class);
 		suite.addTestSuite(SelectStatementTest.class);
 		suite.addTestSuite(StatementTest.class);
+		suite.addTestSuite(TemplateStatementTest.class);
+		suite.addTestSuite(UpdateStatementTest.class);
 		suite.addTestSuite(WhereTest.class);
 		
 		return suite;
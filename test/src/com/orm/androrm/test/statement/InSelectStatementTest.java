@@ -0,0 +1,64 @@
+package com.orm.androrm.test.statement;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import android.test.AndroidTestCase;
+
+import com.orm.androrm.InSelectStatement;
+import com.orm.androrm.SelectStatement;
+import com.orm.androrm.Statement;
+import com.orm.androrm.Where;
+
+public class InSelectStatementTest extends AndroidTestCase {
+
+	private SelectStatement getSelect() {
+		Where where = new Where();
+		where.setStatement(new Statement("mName", "foo"));
+		
+		SelectStatement select = new SelectStatement();
+		select.from("branch")
+			  .select("mSupplier")
+			  .where(where);
+		
+		return select;
+	}
+	
+	public void testPlainStatement() {
+		InSelectStatement in = new InSelectStatement("mId", getSelect());
+		
+		assertEquals("mId IN (SELECT mSupplier FROM `branch` WHERE mName = 'foo')", in.toString());
+	}
+	
+	public void testBindArgs() {
+		InSelectStatement in = new InSelectStatement("mId", getSelect());
+		List<Object> args = new ArrayList<Object>();
+		
+		assertEquals("mId IN (SELECT mSupplier FROM `branch` WHERE mName = ?)", in.toSql(args));
+		assertEquals(1, args.size());
+		assertEquals("foo", args.get(0));
+	}
+	
+	public void testInWhere() {
+		Where where = new Where();
+		where.and(new Statement("mName", "bar"));
+		where.and(new InSelectStatement("mId", getSelect()));
+		
+		List<Object> args = new ArrayList<Object>();
+		
+		assertEquals(" WHERE mName = ? AND mId IN (SELECT mSupplier FROM `branch` WHERE mName = ?)", 
+				where.toSql(args));
+		assertEquals("bar", args.get(0));
+		assertEquals("foo", args.get(1));
+	}
+	
+	public void testGetKeys() {
+		InSelectStatement in = new InSelectStatement("mId", getSelect());
+		
+		Set<String> keys = in.getKeys();
+		
+		assertEquals(1, keys.size());
+		assertTrue(keys.contains("mId"));
+	}
+}
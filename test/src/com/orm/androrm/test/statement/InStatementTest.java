@@ -24,6 +24,18 @@ public class InStatementTest extends AndroidTestCase {
 		assertEquals("foo IN ('1','2','3')", in.toString());
 	}
 	
+	public void testBindArgs() {
+		List<Object> values = new ArrayList<Object>();
+		values.add(1);
+		values.add(2);
+		
+		InStatement in = new InStatement("foo", values);
+		List<Object> args = new ArrayList<Object>();
+		
+		assertEquals("foo IN (?,?)", in.toSql(args));
+		assertEquals(values, args);
+	}
+	
 	public void testGetKeys() {
 		List<Object> values = new ArrayList<Object>();
 		values.add(1);
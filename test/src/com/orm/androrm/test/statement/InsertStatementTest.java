@@ -0,0 +1,25 @@
+package com.orm.androrm.test.statement;
+
+import android.content.ContentValues;
+import android.test.AndroidTestCase;
+
+import com.orm.androrm.InsertStatement;
+import com.orm.androrm.Model;
+
+public class InsertStatementTest extends AndroidTestCase {
+
+	public void testPlaceholders() {
+		ContentValues values = new ContentValues();
+		values.put("foo", "bar");
+		
+		InsertStatement insert = new InsertStatement("table", values);
+		
+		assertEquals("INSERT INTO `table` (`foo`) VALUES (?)", insert.toString());
+	}
+	
+	public void testEmptyValues() {
+		InsertStatement insert = new InsertStatement("table", new ContentValues());
+		
+		assertEquals("INSERT INTO `table` (`" + Model.PK + "`) VALUES (NULL)", insert.toString());
+	}
+}
@@ -1,5 +1,7 @@
 package com.orm.androrm.test.statement;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Set;
 
 import android.test.AndroidTestCase;
@@ -18,6 +20,14 @@ public class LikeStatementTest extends AndroidTestCase {
 		assertEquals("foo LIKE 'bar%'", like.toString());
 	}
 	
+	public void testBindArgs() {
+		LikeStatement like = new LikeStatement("^foo", "bar");
+		List<Object> args = new ArrayList<Object>();
+		
+		assertEquals("foo LIKE ?", like.toSql(args));
+		assertEquals("bar%", args.get(0));
+	}
+	
 	public void testGetKeys() {
 		LikeStatement like = new LikeStatement("foo", "bar");
 		
@@ -1,5 +1,8 @@
 package com.orm.androrm.test.statement;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import android.test.AndroidTestCase;
 
 import com.orm.androrm.JoinStatement;
@@ -64,6 +67,28 @@ public class SelectStatementTest extends AndroidTestCase {
 		assertEquals("SELECT * FROM `table` WHERE foo = 'bar'", mSelect.toString());
 	}
 	
+	public void testBindArgs() {
+		Where inner = new Where();
+		inner.setStatement(new Statement("foo", "bar"));
+		
+		SelectStatement select = new SelectStatement();
+		select.from("another_table")
+			  .where(inner);
+		
+		Where outer = new Where();
+		outer.setStatement(new Statement("baz", 1));
+		
+		mSelect.from(select)
+			   .where(outer);
+		
+		List<Object> args = new ArrayList<Object>();
+		
+		assertEquals("SELECT * FROM (SELECT * FROM `another_table` WHERE foo = ?) WHERE baz = ?", mSelect.toSql(args));
+		assertEquals(2, args.size());
+		assertEquals("bar", args.get(0));
+		assertEquals("1", args.get(1));
+	}
+	
 	public void testOrderBy() {
 		mSelect.orderBy("column");
 		
@@ -81,4 +106,83 @@ public class SelectStatementTest extends AndroidTestCase {
 		
 		assertEquals("SELECT COUNT(*) AS " + Model.COUNT + " FROM `table`", mSelect.toString());
 	}
+	
+	public void testProject() {
+		mSelect.orderBy("column");
+		
+		assertEquals("SELECT `foo`, `bar` FROM `table` ORDER BY column COLLATE NOCASE ASC", mSelect.project("foo", "bar").toString());
+		assertEquals("SELECT * FROM `table` ORDER BY column COLLATE NOCASE ASC", mSelect.toString());
+		
+		SelectStatement select = new SelectStatement();
+		select.select("a.*")
+			  .from("table");
+		
+		assertEquals("SELECT a.`foo` FROM `table`", select.project("foo").toString());
+	}
+	
+	public void testProjectDistinct() {
+		mSelect.distinct();
+		
+		assertEquals("SELECT `foo` FROM (SELECT DISTINCT * FROM `table`)", mSelect.project("foo").toString());
+	}
+	
+	public void testAnd() {
+		mSelect.and(new Statement("foo", "bar"));
+		
+		assertEquals("SELECT * FROM `table` WHERE foo = 'bar'", mSelect.toString());
+		
+		Where where = mSelect.getWhere();
+		SelectStatement select = mSelect.clone().and(new Statement("baz", 1));
+		
+		assertEquals("SELECT * FROM `table` WHERE foo = 'bar' AND baz = '1'", select.toString());
+		assertEquals("SELECT * FROM `table` WHERE foo = 'bar'", mSelect.toString());
+		assertSame(where, mSelect.getWhere());
+	}
+	
+	public void testAndKeepsOrderBy() {
+		SelectStatement select = mSelect.clone()
+										.orderBy("foo")
+										.and(new Statement("bar", "baz"));
+		
+		assertEquals("SELECT * FROM `table` WHERE bar = 'baz' ORDER BY foo COLLATE NOCASE ASC", select.toString());
+	}
+	
+	public void testSelectsRowsOf() {
+		mSelect.and(new Statement("foo", "bar"));
+		
+		assertTrue(mSelect.selectsRowsOf("table"));
+		assertFalse(mSelect.selectsRowsOf("other"));
+		
+		assertFalse(mSelect.clone().select("foo").selectsRowsOf("table"));
+		assertFalse(mSelect.clone().distinct().selectsRowsOf("table"));
+		assertTrue(mSelect.clone().orderBy("foo").selectsRowsOf("table"));
+		assertFalse(mSelect.clone().limit(new Limit(1)).selectsRowsOf("table"));
+		
+		SelectStatement select = new SelectStatement();
+		select.from(mSelect);
+		
+		assertFalse(select.selectsRowsOf("table"));
+	}
+	
+	public void testShape() {
+		assertFalse(mSelect.hasLimit());
+		assertFalse(mSelect.isDistinct());
+		assertFalse(mSelect.isJoin());
+		
+		mSelect.limit(new Limit(10))
+			   .distinct();
+		
+		assertTrue(mSelect.hasLimit());
+		assertTrue(mSelect.isDistinct());
+		
+		JoinStatement join = new JoinStatement();
+		join.left("a", "left")
+			.right("b", "right")
+			.on("foo", "bar");
+		
+		SelectStatement select = new SelectStatement();
+		select.from(join);
+		
+		assertTrue(select.isJoin());
+	}
 }
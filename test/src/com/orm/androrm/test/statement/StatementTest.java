@@ -1,9 +1,13 @@
 package com.orm.androrm.test.statement;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Set;
 
 import android.test.AndroidTestCase;
 
+import com.orm.androrm.NotStatement;
+import com.orm.androrm.OrStatement;
 import com.orm.androrm.Statement;
 
 public class StatementTest extends AndroidTestCase {
@@ -13,6 +17,15 @@ public class StatementTest extends AndroidTestCase {
 		assertEquals("foo = 'bar'", stmt.toString());
 	}
 	
+	public void testBindArgs() {
+		Statement stmt = new Statement("foo", "bar");
+		List<Object> args = new ArrayList<Object>();
+		
+		assertEquals("foo = ?", stmt.toSql(args));
+		assertEquals(1, args.size());
+		assertEquals("bar", args.get(0));
+	}
+	
 	public void testGetKeys() {
 		Statement stmt = new Statement("foo", "bar");
 		
@@ -21,4 +34,21 @@ public class StatementTest extends AndroidTestCase {
 		assertEquals(keys.size(), 1);
 		assertTrue(keys.contains("foo"));
 	}
+	
+	public void testWithKey() {
+		Statement stmt = new Statement("foo", "bar");
+		Statement copy = stmt.withKey("baz");
+		
+		assertEquals("baz = 'bar'", copy.toString());
+		// the original statement is not changed
+		assertEquals("foo = 'bar'", stmt.toString());
+	}
+	
+	public void testWithKeyOfComposed() {
+		Statement stmt = new NotStatement(new OrStatement(new Statement("foo", "bar"), new Statement("foo", "baz")));
+		Statement copy = stmt.withKey("qux");
+		
+		assertEquals("not (qux = 'bar' OR qux = 'baz')", copy.toString());
+		assertEquals("not (foo = 'bar' OR foo = 'baz')", stmt.toString());
+	}
 }
@@ -0,0 +1,54 @@
+package com.orm.androrm.test.statement;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import android.test.AndroidTestCase;
+
+import com.orm.androrm.TemplateStatement;
+import com.orm.androrm.Where;
+
+public class TemplateStatementTest extends AndroidTestCase {
+
+	private TemplateStatement getTemplate() {
+		Set<String> keys = new HashSet<String>();
+		keys.add("foo");
+		keys.add("mId");
+		
+		List<Object> values = new ArrayList<Object>();
+		values.add("bar");
+		values.add(1);
+		
+		return new TemplateStatement("foo = ? AND mId IN (SELECT mSupplier FROM `branch` WHERE mName = ?)", 
+				keys, 
+				values);
+	}
+	
+	public void testPlainStatement() {
+		assertEquals("foo = 'bar' AND mId IN (SELECT mSupplier FROM `branch` WHERE mName = '1')", 
+				getTemplate().toString());
+	}
+	
+	public void testBindArgs() {
+		List<Object> args = new ArrayList<Object>();
+		args.add("first");
+		
+		assertEquals("foo = ? AND mId IN (SELECT mSupplier FROM `branch` WHERE mName = ?)", 
+				getTemplate().toSql(args));
+		assertEquals(3, args.size());
+		assertEquals("first", args.get(0));
+		assertEquals("bar", args.get(1));
+		assertEquals(1, args.get(2));
+	}
+	
+	public void testInWhere() {
+		Where where = new Where();
+		where.setStatement(getTemplate());
+		
+		assertTrue(where.hasConstraint("foo"));
+		assertTrue(where.hasConstraint("mId"));
+		assertFalse(where.hasConstraint("mName"));
+	}
+}
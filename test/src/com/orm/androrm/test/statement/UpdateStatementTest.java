@@ -0,0 +1,40 @@
+package com.orm.androrm.test.statement;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import android.content.ContentValues;
+import android.test.AndroidTestCase;
+
+import com.orm.androrm.UpdateStatement;
+import com.orm.androrm.Where;
+
+public class UpdateStatementTest extends AndroidTestCase {
+
+	private UpdateStatement mUpdate;
+	
+	@Override
+	public void setUp() {
+		ContentValues values = new ContentValues();
+		values.put("foo", "bar");
+		
+		Where where = new Where();
+		where.and("baz", 1);
+		
+		mUpdate = new UpdateStatement("table", values);
+		mUpdate.where(where);
+	}
+	
+	public void testDefault() {
+		assertEquals("UPDATE `table` SET `foo` = 'bar' WHERE baz = '1'", mUpdate.toString());
+	}
+	
+	public void testBindArgs() {
+		List<Object> args = new ArrayList<Object>();
+		
+		assertEquals("UPDATE `table` SET `foo` = ? WHERE baz = ?", mUpdate.toSql(args));
+		assertEquals(2, args.size());
+		assertEquals("bar", args.get(0));
+		assertEquals("1", args.get(1));
+	}
+}